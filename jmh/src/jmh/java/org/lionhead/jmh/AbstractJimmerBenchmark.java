@@ -0,0 +1,39 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+
+/**
+ * 基准测试基类：每次 Trial 打开一次数据库并创建 JSqlClient
+ * 子类如需定制 JSqlClient（缓存、拦截器等），覆盖 createSqlClient 即可
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractJimmerBenchmark {
+
+    protected BenchmarkDatabase database;
+
+    protected JSqlClient sqlClient;
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() throws SQLException {
+        database = BenchmarkDatabase.open();
+        sqlClient = createSqlClient(database);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownDatabase() throws SQLException {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    protected JSqlClient createSqlClient(BenchmarkDatabase database) {
+        return database.createSqlClient();
+    }
+}
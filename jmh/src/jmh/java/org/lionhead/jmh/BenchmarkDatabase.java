@@ -0,0 +1,225 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.dialect.PostgresDialect;
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基准测试数据库
+ * 连接本地 PostgreSQL，在 jimmer_bench schema 下建表并按配置的数量灌入数据；
+ * 数据量与上次一致时跳过灌数，避免每次运行都重新生成
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    public static final String SCHEMA = "jimmer_bench";
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private final Connection connection;
+
+    private final int books;
+
+    private final int stores;
+
+    private final int authors;
+
+    private final int authorsPerBook;
+
+    private BenchmarkDatabase(Connection connection, int books, int stores, int authors, int authorsPerBook) {
+        this.connection = connection;
+        this.books = books;
+        this.stores = stores;
+        this.authors = authors;
+        this.authorsPerBook = authorsPerBook;
+    }
+
+    public static BenchmarkDatabase open() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", System.getProperty("bench.jdbc.username", "postgres"));
+        props.setProperty("password", System.getProperty("bench.jdbc.password", "postgres"));
+        props.setProperty("reWriteBatchedInserts", "true");
+        Connection connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+                props
+        );
+        BenchmarkDatabase database = new BenchmarkDatabase(
+                connection,
+                Integer.getInteger("bench.books", 10000),
+                Integer.getInteger("bench.stores", 100),
+                Integer.getInteger("bench.authors", 2000),
+                Integer.getInteger("bench.authorsPerBook", 3)
+        );
+        database.createSchema();
+        connection.setSchema(SCHEMA);
+        database.seedIfNecessary();
+        return database;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getBooks() {
+        return books;
+    }
+
+    public int getStores() {
+        return stores;
+    }
+
+    public int getAuthors() {
+        return authors;
+    }
+
+    public JSqlClient createSqlClient() {
+        return createSqlClient(UnaryOperator.identity());
+    }
+
+    // 基准测试单线程运行，共用一个连接即可，排除连接获取的开销
+    public JSqlClient createSqlClient(UnaryOperator<JSqlClient.Builder> customizer) {
+        return customizer.apply(
+                JSqlClient
+                        .newBuilder()
+                        .setConnectionManager(ConnectionManager.singleConnectionManager(connection))
+                        .setDialect(new PostgresDialect())
+        ).build();
+    }
+
+    private void createSchema() throws SQLException {
+        String script;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/bench-schema.sql")) {
+            if (in == null) {
+                throw new IllegalStateException("bench-schema.sql is missing");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read bench-schema.sql", e);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+
+    private void seedIfNecessary() throws SQLException {
+        if (count("book") == books
+                && count("book_store") == stores
+                && count("author") == authors
+                && count("book_author_mapping") == (long) books * Math.min(authorsPerBook, authors)) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("truncate book_author_mapping, book, author, book_store restart identity");
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            seed();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("analyze");
+        }
+    }
+
+    private void seed() throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Random random = new Random(42);
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "insert into book_store(name, website, created_time, modified_time) values(?, ?, ?, ?)")) {
+            for (int i = 1; i <= stores; i++) {
+                stmt.setString(1, "store " + i);
+                stmt.setString(2, i % 2 == 0 ? "https://store" + i + ".example.com" : null);
+                stmt.setTimestamp(3, now);
+                stmt.setTimestamp(4, now);
+                addBatch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "insert into author(first_name, last_name, gender, created_time, modified_time) values(?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= authors; i++) {
+                // 每 10 个作者中有一个叫 Alex，供隐式子查询的基准使用
+                stmt.setString(1, i % 10 == 0 ? "Alex" : "first " + i);
+                stmt.setString(2, "last " + i);
+                stmt.setString(3, i % 2 == 0 ? "F" : "M");
+                stmt.setTimestamp(4, now);
+                stmt.setTimestamp(5, now);
+                addBatch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "insert into book(name, edition, price, tenant, store_id, created_time, modified_time) " +
+                        "values(?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= books; i++) {
+                stmt.setString(1, "book " + (i / 5));
+                stmt.setInt(2, i % 5 + 1);
+                stmt.setDouble(3, 10 + random.nextInt(9000) / 100.0);
+                stmt.setString(4, "tenant-" + (i % 8));
+                stmt.setInt(5, 1 + random.nextInt(stores));
+                stmt.setTimestamp(6, now);
+                stmt.setTimestamp(7, now);
+                addBatch(stmt, i);
+            }
+            stmt.executeBatch();
+        }
+        int perBook = Math.min(authorsPerBook, authors);
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "insert into book_author_mapping(book_id, author_id) values(?, ?)")) {
+            int rows = 0;
+            for (int bookId = 1; bookId <= books; bookId++) {
+                int first = random.nextInt(authors);
+                for (int j = 0; j < perBook; j++) {
+                    stmt.setInt(1, bookId);
+                    stmt.setInt(2, 1 + (first + j) % authors);
+                    addBatch(stmt, ++rows);
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void addBatch(PreparedStatement stmt, int index) throws SQLException {
+        stmt.addBatch();
+        if (index % SEED_BATCH_SIZE == 0) {
+            stmt.executeBatch();
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("select count(*) from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
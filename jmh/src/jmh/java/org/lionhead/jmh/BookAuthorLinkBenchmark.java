@@ -0,0 +1,89 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.ast.mutation.AssociatedSaveMode;
+import org.babyfish.jimmer.sql.ast.mutation.SaveMode;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.service.ManyToManyLinkWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整批替换 Book.authors：Jimmer 按聚合根保存关联 与 unnest 数组集合化维护中间表的对比
+ * 两组作者集合交替保存，每次调用都有一半的关联需要删除、一半需要插入
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class BookAuthorLinkBenchmark extends AbstractJimmerBenchmark {
+
+    @Param({"1000"})
+    public int books;
+
+    @Param({"10"})
+    public int authorsPerBook;
+
+    private final List<Map<Integer, List<Integer>>> variants = new ArrayList<>();
+
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUpLinks() {
+        int bookCount = Math.min(books, database.getBooks());
+        for (int variant = 0; variant < 2; variant++) {
+            Map<Integer, List<Integer>> links = new LinkedHashMap<>();
+            for (int bookId = 1; bookId <= bookCount; bookId++) {
+                List<Integer> authorIds = new ArrayList<>(authorsPerBook);
+                for (int i = 0; i < authorsPerBook; i++) {
+                    // 两组集合在偶数位置相同、奇数位置不同
+                    int offset = i % 2 == 0 ? i : i + variant * authorsPerBook;
+                    authorIds.add(1 + (bookId + offset) % database.getAuthors());
+                }
+                links.put(bookId, authorIds);
+            }
+            variants.add(links);
+        }
+    }
+
+    @Benchmark
+    public Object saveEntitiesCommand() {
+        List<Book> entities = new ArrayList<>();
+        nextVariant().forEach((bookId, authorIds) -> entities.add(
+                BookDraft.$.produce(draft -> {
+                    draft.setId(bookId);
+                    for (Integer authorId : authorIds) {
+                        draft.addIntoAuthors(author -> author.setId(authorId));
+                    }
+                })
+        ));
+        return sqlClient.getEntities()
+                .saveEntitiesCommand(entities)
+                .setMode(SaveMode.UPDATE_ONLY)
+                .setAssociatedModeAll(AssociatedSaveMode.REPLACE)
+                .execute();
+    }
+
+    @Benchmark
+    public Object linkWriter() {
+        return ManyToManyLinkWriter.replace(sqlClient, BookProps.AUTHORS, nextVariant());
+    }
+
+    private Map<Integer, List<Integer>> nextVariant() {
+        return variants.get(invocation++ & 1);
+    }
+}
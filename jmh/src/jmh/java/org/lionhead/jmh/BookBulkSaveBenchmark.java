@@ -0,0 +1,82 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.ast.mutation.SaveMode;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.service.BookBulkSaveService;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveEntitiesCommand 与 COPY + ON CONFLICT 批量保存的对比
+ * 每次调用都保存同一批 rows 本书：一半是已存在的（走 UPDATE），一半是新的（走 INSERT）
+ * 新增的数据在每次调用后删除，不影响其他基准测试使用的数据
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BookBulkSaveBenchmark extends AbstractJimmerBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void setUpBooks() {
+        LocalDateTime now = LocalDateTime.now();
+        books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int index = i;
+            // 偶数行对应种子数据中已存在的 Key，奇数行是新 Key
+            boolean existing = i % 2 == 0 && i / 2 < database.getBooks();
+            books.add(BookDraft.$.produce(draft -> draft
+                    .setName(existing ? "book " + ((index / 2 + 1) / 5) : "bulk " + index)
+                    .setEdition(existing ? (index / 2 + 1) % 5 + 1 : 1)
+                    .setPrice(10 + index % 100)
+                    .setTenant("tenant-" + index % 8)
+                    .applyBookStore(store -> store.setId(1 + index % database.getStores()))
+                    .setCreatedTime(now)
+                    .setModifiedTime(now)
+            ));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteInsertedBooks() throws SQLException {
+        try (Statement stmt = database.getConnection().createStatement()) {
+            stmt.execute("delete from book where name like 'bulk %'");
+        }
+    }
+
+    @Benchmark
+    public Object saveEntitiesCommand() {
+        return sqlClient.getEntities()
+                .saveEntitiesCommand(books)
+                .setMode(SaveMode.UPSERT)
+                .execute();
+    }
+
+    @Benchmark
+    public Object copyUpsert() {
+        // 种子数据分布在 8 个租户中，以 ADMIN 身份写入
+        return TenantContext.call(TenantContext.ADMIN, () -> BookBulkSaveService.bulkUpsert(sqlClient, books));
+    }
+}
@@ -0,0 +1,87 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.JoinType;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.AuthorTableEx;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一个查询的不同写法：
+ * 1. tuple 平铺 vs BookFetcher 结构化抓取（part3 complexFetcher）
+ * 2. table.authors(lambda) 隐式子查询 vs createSubQuery 显式子查询（part3 implicitSubQuery）
+ * Throughput 看吞吐，SampleTime 给出 p50/p90/p99 等延迟分位数，gc profiler 给出分配速率
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueryShapeBenchmark extends AbstractJimmerBenchmark {
+
+    private static final int STORE_ID = 1;
+
+    private static final BookFetcher FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name())
+            .authors(AuthorFetcher.$.firstName().lastName());
+
+    // 一条 SQL，book 与 book_store、作者中间表、author 全部 join，结果按作者数量膨胀
+    @Benchmark
+    public List<?> tupleSelect() {
+        BookTable table = BookTable.$;
+        return sqlClient.createQuery(table)
+                .where(table.bookStoreId().eq(STORE_ID))
+                .select(
+                        table.id(),
+                        table.name(),
+                        table.edition(),
+                        table.price(),
+                        table.bookStore(JoinType.LEFT).name(),
+                        table.asTableEx().authors(JoinType.LEFT).id(),
+                        table.asTableEx().authors(JoinType.LEFT).firstName(),
+                        table.asTableEx().authors(JoinType.LEFT).lastName()
+                )
+                .execute();
+    }
+
+    // 先查聚合根，再批量加载 bookStore 和 authors
+    @Benchmark
+    public List<Book> fetcherSelect() {
+        BookTable table = BookTable.$;
+        return sqlClient.createQuery(table)
+                .where(table.bookStoreId().eq(STORE_ID))
+                .select(table.fetch(FETCHER))
+                .execute();
+    }
+
+    @Benchmark
+    public List<Book> implicitSubQuery() {
+        BookTable table = BookTable.$;
+        return sqlClient.createQuery(table)
+                .where(table.authors(author -> author.firstName().eq("Alex")))
+                .select(table)
+                .execute();
+    }
+
+    @Benchmark
+    public List<Book> explicitSubQuery() {
+        BookTable table = BookTable.$;
+        AuthorTableEx authorTableEx = AuthorTableEx.$;
+        return sqlClient.createQuery(table)
+                .where(
+                        table.id().in(
+                                sqlClient.createSubQuery(authorTableEx)
+                                        .where(authorTableEx.firstName().eq("Alex"))
+                                        .select(authorTableEx.books().id())
+                        )
+                )
+                .select(table)
+                .execute();
+    }
+}
@@ -0,0 +1,82 @@
+package org.lionhead.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.babyfish.jimmer.jackson.ImmutableModule;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.json.ShapeJsonWriters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List<Book> 的 JSON 输出：Jackson + ImmutableModule 的通用路径 vs 按抓取形状专门化的 ShapeJsonWriters
+ * 数据在 Setup 中按 BookController 常用的形状查出（默认 bench.books = 10000 本），基准只测序列化；
+ * 写入丢弃数据的输出流，gc profiler 的 gc.alloc.rate.norm 即每次序列化的分配量
+ * 运行：gradle :jmh:jmh -Pbench.includes=ShapeJsonWriter，需要 bench.jdbc.* 指向已有测试数据的 PostgreSQL
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ShapeJsonWriterBenchmark extends AbstractJimmerBenchmark {
+
+    private static final BookFetcher FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name())
+            .authors(AuthorFetcher.$.firstName().lastName());
+
+    private ObjectMapper objectMapper;
+
+    private ShapeJsonWriters writers;
+
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void setUpBooks() throws IOException {
+        // 与 Spring Boot 默认的 ObjectMapper 配置一致：日期输出为 ISO 字符串
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .addModule(new ImmutableModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writers = new ShapeJsonWriters(objectMapper);
+        BookTable table = BookTable.$;
+        books = sqlClient.createQuery(table)
+                .orderBy(table.id())
+                .select(table.fetch(FETCHER))
+                .limit(database.getBooks())
+                .execute();
+        // 输出不一致时基准没有意义
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        objectMapper.writeValue(expected, books);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        writers.writeList(actual, books);
+        if (!Arrays.equals(expected.toByteArray(), actual.toByteArray())) {
+            throw new IllegalStateException("ShapeJsonWriters output differs from the generic serializer");
+        }
+        System.out.printf("%d books, %d bytes, %d shapes%n", books.size(), expected.size(), writers.shapeCount());
+    }
+
+    @Benchmark
+    public void generic() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), books);
+    }
+
+    @Benchmark
+    public void shapeSpecialized() throws IOException {
+        writers.writeList(OutputStream.nullOutputStream(), books);
+    }
+}
@@ -0,0 +1,112 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.runtime.DefaultExecutor;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreTable;
+import org.lionhead.advancestarter.service.DynamicQueryService;
+import org.lionhead.advancestarter.sqlcache.ShapeCaptureExecutor;
+import org.lionhead.advancestarter.sqlcache.ShapeKey;
+import org.lionhead.advancestarter.sqlcache.SqlShapeCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Level;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询形状缓存（SqlShapeCache）的收益
+ * jimmer / shapeCached：端到端对比，包含数据库往返
+ * jimmerRenderOnly：只构建 AST 和渲染 SQL、不访问数据库，即缓存命中时每次查询省下的 CPU
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SqlShapeCacheBenchmark extends AbstractJimmerBenchmark {
+
+    private static final String NAME = "store 7";
+
+    private SqlShapeCache shapeCache;
+
+    private JSqlClient renderOnlySqlClient;
+
+    @Override
+    protected JSqlClient createSqlClient(BenchmarkDatabase database) {
+        return database.createSqlClient(builder -> builder.setExecutor(new ShapeCaptureExecutor(DefaultExecutor.INSTANCE)));
+    }
+
+    @Setup(Level.Trial)
+    public void setUpShapeCache() {
+        shapeCache = new SqlShapeCache(256);
+        renderOnlySqlClient = database.createSqlClient(builder -> builder.setExecutor(new RenderOnlyExecutor()));
+    }
+
+    @TearDown(Level.Trial)
+    public void printStats() {
+        System.out.println("shape cache stats: " + shapeCache.stats());
+    }
+
+    @Benchmark
+    public List<BookStore> jimmer() {
+        return query(sqlClient);
+    }
+
+    @Benchmark
+    public List<BookStore> shapeCached() {
+        return shapeCache.query(
+                sqlClient,
+                new ShapeKey("bookStore.search", BookStore.class, 2),
+                List.of(NAME),
+                () -> query(sqlClient),
+                DynamicQueryService.BOOK_STORE_MAPPER
+        );
+    }
+
+    @Benchmark
+    public List<BookStore> jimmerRenderOnly() {
+        return query(renderOnlySqlClient);
+    }
+
+    private static List<BookStore> query(JSqlClient sqlClient) {
+        BookStoreTable table = BookStoreTable.$;
+        String website = null;
+        return sqlClient.createQuery(table)
+                .where(table.website().eqIf(website))
+                .where(table.name().eqIf(NAME))
+                .select(table)
+                .execute();
+    }
+
+    // 不访问数据库，直接返回空结果
+    private static class RenderOnlyExecutor implements Executor {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R execute(@NotNull Args<R> args) {
+            return (R) Collections.emptyList();
+        }
+
+        @Override
+        public BatchContext executeBatch(
+                @NotNull Connection con,
+                @NotNull String sql,
+                @Nullable ImmutableProp generatedIdProp,
+                @NotNull ExecutionPurpose purpose,
+                @NotNull JSqlClientImplementor sqlClient
+        ) {
+            throw new UnsupportedOperationException("batch is not used by this benchmark");
+        }
+    }
+}
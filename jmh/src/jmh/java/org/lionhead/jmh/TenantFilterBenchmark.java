@@ -0,0 +1,109 @@
+package org.lionhead.jmh;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.tenant.BookTenantFilter;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Book 租户过滤器的开销，以及过滤后的查询是否仍然只扫索引
+ * 种子数据有 8 个租户，每个租户约占 1/8，用 -Pbench.books=1000000 模拟大租户。
+ * Setup 阶段对等价 SQL 执行 EXPLAIN，没有走 Index Only Scan 时直接失败
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TenantFilterBenchmark extends AbstractJimmerBenchmark {
+
+    private static final String TENANT = "tenant-0";
+
+    private static final int STORE_ID = 1;
+
+    private static final double PRICE_FROM = 50;
+
+    private static final List<String> INDEX_ONLY_QUERIES = List.of(
+            "select id from book where tenant = '" + TENANT + "' and store_id = " + STORE_ID,
+            "select id, price from book where tenant = '" + TENANT + "' and price > " + PRICE_FROM +
+                    " order by price, id limit 20",
+            "select store_id, count(*), avg(price) from book where tenant = '" + TENANT + "'" +
+                    " and store_id = any('{1,2,3,4,5,6,7,8,9,10}') group by store_id"
+    );
+
+    // 是否设置租户：false 时以 ADMIN 身份查询，过滤器不生效，作为对照组
+    @Param({"true", "false"})
+    public boolean filtered;
+
+    @Override
+    protected JSqlClient createSqlClient(BenchmarkDatabase database) {
+        return database.createSqlClient(builder -> builder.addFilters(new BookTenantFilter()));
+    }
+
+    @Setup(Level.Trial)
+    public void verifyIndexOnly() throws SQLException {
+        try (Statement stmt = database.getConnection().createStatement()) {
+            // Index Only Scan 依赖可见性映射，灌数后需要 vacuum
+            stmt.execute("vacuum analyze book");
+            for (String sql : INDEX_ONLY_QUERIES) {
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = stmt.executeQuery("explain " + sql)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                if (!plan.toString().contains("Index Only Scan")) {
+                    throw new IllegalStateException("Expected an index-only scan for: " + sql + "\n" + plan);
+                }
+            }
+        }
+    }
+
+    // BookStore.books 关联加载的第一步：查出书店下的图书 id
+    @Benchmark
+    public List<Integer> storeBookIds() {
+        BookTable table = BookTable.$;
+        return call(() -> sqlClient.createQuery(table)
+                .where(table.bookStoreId().eq(STORE_ID))
+                .select(table.id())
+                .execute());
+    }
+
+    // 按价格的游标分页
+    @Benchmark
+    public List<?> pricePage() {
+        BookTable table = BookTable.$;
+        return call(() -> sqlClient.createQuery(table)
+                .where(table.price().gt(PRICE_FROM))
+                .orderBy(table.price(), table.id())
+                .select(table.id(), table.price())
+                .limit(20)
+                .execute());
+    }
+
+    // bookCount / avgPrice 计算属性的 GROUP BY
+    @Benchmark
+    public List<?> storeAggregates() {
+        BookTable table = BookTable.$;
+        return call(() -> sqlClient.createQuery(table)
+                .where(table.bookStoreId().in(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)))
+                .groupBy(table.bookStoreId())
+                .select(table.bookStoreId(), table.count(), table.price().avg())
+                .execute());
+    }
+
+    private <T> T call(Supplier<T> action) {
+        return TenantContext.call(filtered ? TENANT : TenantContext.ADMIN, action);
+    }
+}
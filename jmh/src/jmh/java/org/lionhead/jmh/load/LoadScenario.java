@@ -0,0 +1,173 @@
+package org.lionhead.jmh.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地压测场景：固定并发数的闭环压测，每个并发用户循环请求同一组接口
+ * 用于对比 part3 默认平台线程模式与 virtual profile 下的吞吐和 p99 延迟
+ *
+ * 参数（系统属性）：
+ * load.baseUrl     被测服务地址
+ * load.label       本次运行的名称，写入结果文件名
+ * load.concurrency 并发用户数，应大于 Tomcat 默认的 200 个请求线程才能体现差异
+ * load.warmup      预热时长（秒）
+ * load.duration    压测时长（秒）
+ * load.paths       逗号分隔的接口路径
+ * load.headers     分号分隔的请求头，如 Accept-Encoding: gzip;If-None-Match: "abc"
+ *                  默认带上 X-Tenant: tenant-0，没有租户时图书接口不返回数据
+ */
+public class LoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl", "http://localhost:8080");
+        String label = System.getProperty("load.label", "default");
+        int concurrency = Integer.getInteger("load.concurrency", 400);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        List<URI> uris = Arrays.stream(
+                System.getProperty("load.paths", "/book/page?size=20,/book/page/flat?size=20,/tree/1/subtree").split(",")
+        ).map(path -> URI.create(baseUrl + path.trim())).toList();
+        String[] headers = parseHeaders(System.getProperty("load.headers", "X-Tenant: tenant-0"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        System.out.printf("warming up %s for %s%n", label, warmup);
+        runPhase(client, uris, headers, concurrency, warmup);
+        System.out.printf("measuring %s for %s with %d concurrent users%n", label, duration, concurrency);
+        Result result = runPhase(client, uris, headers, concurrency, duration);
+
+        String json = result.toJson(label, concurrency);
+        System.out.println(json);
+        Path output = Path.of("build", "results", "load", label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+    }
+
+    // HttpRequest.Builder.headers 需要 name, value 交替排列
+    private static String[] parseHeaders(String text) {
+        List<String> headers = new ArrayList<>();
+        for (String header : text.split(";")) {
+            int index = header.indexOf(':');
+            if (index > 0) {
+                headers.add(header.substring(0, index).trim());
+                headers.add(header.substring(index + 1).trim());
+            }
+        }
+        return headers.toArray(String[]::new);
+    }
+
+    private static Result runPhase(
+            HttpClient client,
+            List<URI> uris,
+            String[] headers,
+            int concurrency,
+            Duration duration
+    ) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> perUser = new ArrayList<>(concurrency);
+        List<Recorder> recorders = new ArrayList<>(concurrency);
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                int offset = i;
+                users.submit(() -> {
+                    int n = offset;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest.Builder builder = HttpRequest.newBuilder(uris.get(n++ % uris.size()))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET();
+                        if (headers.length > 0) {
+                            builder.headers(headers);
+                        }
+                        HttpRequest request = builder.build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            } else {
+                                recorder.record(System.nanoTime() - start);
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        for (Recorder recorder : recorders) {
+            perUser.add(recorder.toArray());
+        }
+        long[] latencies = perUser.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(latencies, errors.get(), duration);
+    }
+
+    // 每个并发用户单独记录，避免共享结构上的竞争影响测量
+    private static class Recorder {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long errors, Duration duration) {
+
+        double percentileMillis(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1_000_000.0;
+        }
+
+        String toJson(String label, int concurrency) {
+            return String.format(
+                    Locale.ROOT,
+                    "{\"label\":\"%s\",\"concurrency\":%d,\"requests\":%d,\"errors\":%d," +
+                            "\"throughput\":%.1f,\"p50Ms\":%.2f,\"p90Ms\":%.2f,\"p99Ms\":%.2f,\"maxMs\":%.2f}",
+                    label,
+                    concurrency,
+                    sortedLatencies.length,
+                    errors,
+                    sortedLatencies.length / (double) duration.toSeconds(),
+                    percentileMillis(0.50),
+                    percentileMillis(0.90),
+                    percentileMillis(0.99),
+                    percentileMillis(1.0)
+            );
+        }
+    }
+}
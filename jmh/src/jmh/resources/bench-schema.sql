@@ -0,0 +1,59 @@
+-- 基准测试专用 schema，与 part3-advance-starter 中的实体一一对应
+create schema if not exists jimmer_bench;
+
+create table if not exists jimmer_bench.book_store (
+    id int generated by default as identity primary key,
+    name varchar(50) not null unique,
+    website varchar(100),
+    created_time timestamp not null,
+    modified_time timestamp not null
+);
+
+create table if not exists jimmer_bench.book (
+    id int generated by default as identity primary key,
+    name varchar(50) not null,
+    edition int not null,
+    price numeric(10, 2) not null,
+    tenant varchar(20) not null,
+    store_id int,
+    created_time timestamp not null,
+    modified_time timestamp not null,
+    unique (name, edition)
+);
+
+create index if not exists idx_book_store_id on jimmer_bench.book (store_id);
+
+-- 与 part3 的 db/book-tenant-indexes.sql 保持一致
+create index if not exists idx_book_tenant_store_id on jimmer_bench.book (tenant, store_id, id) include (price);
+
+create index if not exists idx_book_tenant_price_id on jimmer_bench.book (tenant, price, id);
+
+create index if not exists idx_book_tenant_name_edition on jimmer_bench.book (tenant, name, edition) include (id);
+
+create table if not exists jimmer_bench.author (
+    id int generated by default as identity primary key,
+    first_name varchar(50) not null,
+    last_name varchar(50) not null,
+    gender varchar(1) not null,
+    created_time timestamp not null,
+    modified_time timestamp not null,
+    unique (first_name, last_name)
+);
+
+create table if not exists jimmer_bench.book_author_mapping (
+    book_id int not null,
+    author_id int not null,
+    primary key (book_id, author_id)
+);
+
+create index if not exists idx_book_author_mapping_author_id on jimmer_bench.book_author_mapping (author_id);
+
+create table if not exists jimmer_bench.tree_node (
+    node_id int generated by default as identity primary key,
+    name varchar(50) not null,
+    parent_id int,
+    created_time timestamp not null,
+    modified_time timestamp not null
+);
+
+create index if not exists idx_tree_node_parent_id on jimmer_bench.tree_node (parent_id);
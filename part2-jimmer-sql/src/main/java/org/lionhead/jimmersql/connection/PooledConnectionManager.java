@@ -0,0 +1,380 @@
+package org.lionhead.jimmersql.connection;
+
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+import org.babyfish.jimmer.sql.runtime.ExecutionException;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 带连接池的 ConnectionManager，用于替代 singleConnectionManager
+ * singleConnectionManager 整个进程只有一个连接，所有查询都被串行化；这里按需创建连接，最多 maxSize 个
+ *
+ * 对虚拟线程友好：整个实现没有 synchronized，等待连接使用 Semaphore 和 LinkedBlockingDeque（基于 AQS 的 park），
+ * 虚拟线程在等待时会从载体线程上卸载，不会钉住（pin）载体线程。
+ * 注意 PostgreSQL 驱动从 42.6 起内部也已改用 ReentrantLock
+ */
+public class PooledConnectionManager implements ConnectionManager, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledConnectionManager.class);
+
+    private static final long AWAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int minIdle;
+
+    private final int maxSize;
+
+    private final Duration acquireTimeout;
+
+    private final Duration validationTimeout;
+
+    private final Duration validateAfterIdle;
+
+    private final Duration leakDetectionThreshold;
+
+    // 控制同时借出的连接数量，公平模式，先等待的先拿到连接
+    private final Semaphore permits;
+
+    // 空闲连接，后进先出，让最近用过的连接保持热度，多余的连接自然闲置
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    private final Map<PooledConnection, Lease> leased = new ConcurrentHashMap<>();
+
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    private PooledConnectionManager(Builder builder) {
+        this.connectionFactory = builder.connectionFactory;
+        this.minIdle = builder.minIdle;
+        this.maxSize = builder.maxSize;
+        this.acquireTimeout = builder.acquireTimeout;
+        this.validationTimeout = builder.validationTimeout;
+        this.validateAfterIdle = builder.validateAfterIdle;
+        this.leakDetectionThreshold = builder.leakDetectionThreshold;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("jimmer-pool-housekeeper").daemon().factory()
+        );
+        long periodMillis = leakDetectionThreshold.isZero()
+                ? 30_000
+                : Math.max(1000, leakDetectionThreshold.toMillis() / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder newBuilder(String url, String username, String password) {
+        return new Builder(() -> DriverManager.getConnection(url, username, password));
+    }
+
+    public static Builder newBuilder(ConnectionFactory connectionFactory) {
+        return new Builder(connectionFactory);
+    }
+
+    @Override
+    public <R> R execute(@Nullable Connection con, Function<Connection, R> block) {
+        // 调用方已经持有连接（例如 Jimmer 内部的嵌套调用），直接复用
+        if (con != null) {
+            return block.apply(con);
+        }
+        PooledConnection pooled = acquire();
+        try {
+            return block.apply(pooled.connection);
+        } finally {
+            release(pooled);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(total.get(), idle.size(), leased.size(), permits.getQueueLength());
+    }
+
+    private PooledConnection acquire() {
+        if (closed) {
+            throw new ExecutionException("The connection pool has been closed");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ExecutionException(
+                        "Cannot acquire connection within " + acquireTimeout + ", stats: " + stats()
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException("Interrupted while acquiring connection", e);
+        }
+        try {
+            PooledConnection pooled = takeIdleOrCreate(System.nanoTime() + acquireTimeout.toNanos());
+            leased.put(pooled, new Lease(
+                    System.nanoTime(),
+                    leakDetectionThreshold.isZero() ? null : new Exception("Connection acquired here")
+            ));
+            return pooled;
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate(long deadlineNanos) {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                // 拿到了许可，说明借出数 < maxSize；若没有空闲连接，总数一定也 < maxSize，
+                // 只有后台补充最小空闲连接时才可能抢走名额，此时阻塞等待该连接放入空闲队列
+                PooledConnection created = tryCreate();
+                if (created != null) {
+                    return created;
+                }
+                pooled = awaitIdle(deadlineNanos);
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+    }
+
+    // 后台创建连接失败时不会有连接放入队列，所以分段等待，每段结束后重新尝试创建
+    private PooledConnection awaitIdle(long deadlineNanos) {
+        while (true) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                throw new ExecutionException(
+                        "Cannot acquire connection within " + acquireTimeout + ", stats: " + stats()
+                );
+            }
+            PooledConnection pooled;
+            try {
+                pooled = idle.pollFirst(Math.min(remaining, AWAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExecutionException("Interrupted while acquiring connection", e);
+            }
+            if (pooled == null) {
+                pooled = tryCreate();
+            }
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        leased.remove(pooled);
+        try {
+            if (closed || pooled.connection.isClosed()) {
+                discard(pooled);
+            } else {
+                // 把连接还原成默认状态，防止上一次使用残留的事务影响下一次
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Discard broken connection: {}", e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // 只有空闲时间超过 validateAfterIdle 的连接才校验，避免每次借出都多一次网络往返
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.nanoTime() - pooled.lastUsedNanos < validateAfterIdle.toNanos()) {
+            return true;
+        }
+        try {
+            return pooled.connection.isValid((int) Math.max(1, validationTimeout.toSeconds()));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection tryCreate() {
+        int current;
+        do {
+            current = total.get();
+            if (current >= maxSize) {
+                return null;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        try {
+            return new PooledConnection(connectionFactory.create());
+        } catch (SQLException e) {
+            total.decrementAndGet();
+            throw new ExecutionException("Cannot create connection", e);
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Failed to close connection: {}", e.getMessage());
+        }
+    }
+
+    private void housekeep() {
+        try {
+            detectLeaks();
+            fillMinIdle();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Connection pool housekeeping failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // 借出时间超过阈值的连接打印借出时的堆栈，每个连接只报一次
+    private void detectLeaks() {
+        if (leakDetectionThreshold.isZero()) {
+            return;
+        }
+        long now = System.nanoTime();
+        leased.forEach((pooled, lease) -> {
+            if (!lease.reported && now - lease.acquiredNanos > leakDetectionThreshold.toNanos()) {
+                lease.reported = true;
+                LOGGER.warn(
+                        "Possible connection leak, connection has been leased for {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(now - lease.acquiredNanos),
+                        lease.stackTrace
+                );
+            }
+        });
+    }
+
+    private void fillMinIdle() {
+        while (!closed && idle.size() < minIdle) {
+            PooledConnection created = tryCreate();
+            if (created == null) {
+                return;
+            }
+            idle.offerLast(created);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    public record Stats(int total, int idle, int leased, int waiting) {
+    }
+
+    private static class PooledConnection {
+
+        final Connection connection;
+
+        volatile long lastUsedNanos = System.nanoTime();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private static class Lease {
+
+        final long acquiredNanos;
+
+        final Exception stackTrace;
+
+        volatile boolean reported;
+
+        Lease(long acquiredNanos, Exception stackTrace) {
+            this.acquiredNanos = acquiredNanos;
+            this.stackTrace = stackTrace;
+        }
+    }
+
+    public static class Builder {
+
+        private final ConnectionFactory connectionFactory;
+
+        private int minIdle = 2;
+
+        private int maxSize = 10;
+
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        private Duration validationTimeout = Duration.ofSeconds(3);
+
+        private Duration validateAfterIdle = Duration.ofSeconds(30);
+
+        // 0 表示关闭泄漏检测
+        private Duration leakDetectionThreshold = Duration.ZERO;
+
+        private Builder(ConnectionFactory connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        public Builder setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        public Builder setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public Builder setValidationTimeout(Duration validationTimeout) {
+            this.validationTimeout = validationTimeout;
+            return this;
+        }
+
+        public Builder setValidateAfterIdle(Duration validateAfterIdle) {
+            this.validateAfterIdle = validateAfterIdle;
+            return this;
+        }
+
+        public Builder setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+            this.leakDetectionThreshold = leakDetectionThreshold;
+            return this;
+        }
+
+        public PooledConnectionManager build() {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            if (minIdle < 0 || minIdle > maxSize) {
+                throw new IllegalArgumentException("minIdle must be between 0 and maxSize");
+            }
+            return new PooledConnectionManager(this);
+        }
+    }
+}
@@ -14,9 +14,9 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class App {
-    private static final String URL = "jdbc:postgresql://43.138.210.244:5432/postgres?useSSL=false&serverTimezone=Asia/Shanghai&allowPublicKeyRetrieval=true&characterEncoding=utf8";
-    private static final String USERNAME = "user_CPKmph";
-    private static final String PASSWORD = "password_baQimQ";
+    static final String URL = "jdbc:postgresql://43.138.210.244:5432/postgres?useSSL=false&serverTimezone=Asia/Shanghai&allowPublicKeyRetrieval=true&characterEncoding=utf8";
+    static final String USERNAME = "user_CPKmph";
+    static final String PASSWORD = "password_baQimQ";
     private static final Logger LOGGER = LoggerFactory.getLogger(App.class);
 
     public static void main(String[] args) {
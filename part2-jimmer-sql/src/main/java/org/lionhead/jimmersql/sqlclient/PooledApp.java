@@ -0,0 +1,84 @@
+package org.lionhead.jimmersql.sqlclient;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.dialect.PostgresDialect;
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+import org.lionhead.jimmersql.connection.PooledConnectionManager;
+import org.lionhead.jimmersql.entity.Author;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 对比 singleConnectionManager 与连接池在并发 findById 下的吞吐
+ * 每个请求跑在一个虚拟线程上：单连接时所有查询排队执行，连接池时最多 maxSize 个查询并行
+ */
+public class PooledApp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledApp.class);
+
+    private static final int REQUESTS = 2000;
+
+    private static final int POOL_SIZE = 10;
+
+    public static void main(String[] args) throws Exception {
+        try (Connection connection = DriverManager.getConnection(App.URL, App.USERNAME, App.PASSWORD)) {
+            JSqlClient singleSqlClient = newSqlClient(ConnectionManager.singleConnectionManager(connection));
+            run("singleConnectionManager", singleSqlClient);
+        } catch (SQLException e) {
+            LOGGER.warn(e.getMessage(), e);
+        }
+
+        try (PooledConnectionManager connectionManager = PooledConnectionManager
+                .newBuilder(App.URL, App.USERNAME, App.PASSWORD)
+                .setMinIdle(POOL_SIZE)
+                .setMaxSize(POOL_SIZE)
+                .setAcquireTimeout(Duration.ofSeconds(10))
+                .setLeakDetectionThreshold(Duration.ofSeconds(5))
+                .build()) {
+            JSqlClient pooledSqlClient = newSqlClient(connectionManager);
+            run("PooledConnectionManager", pooledSqlClient);
+            LOGGER.info("pool stats: {}", connectionManager.stats());
+        }
+    }
+
+    private static JSqlClient newSqlClient(ConnectionManager connectionManager) {
+        return JSqlClient
+                .newBuilder()
+                .setConnectionManager(connectionManager)
+                .setDialect(new PostgresDialect())
+                .build();
+    }
+
+    private static void run(String name, JSqlClient sqlClient) throws Exception {
+        // 预热，建立连接、加载类
+        sqlClient.findById(Author.class, 1);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Author>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> sqlClient.findById(Author.class, 1)));
+            }
+            for (Future<Author> future : futures) {
+                future.get();
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        LOGGER.info(
+                "{}: {} findById in {} ms, {} ops/s",
+                name,
+                REQUESTS,
+                elapsed.toMillis(),
+                REQUESTS * 1000L / Math.max(1, elapsed.toMillis())
+        );
+    }
+}
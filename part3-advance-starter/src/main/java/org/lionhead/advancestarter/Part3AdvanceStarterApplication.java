@@ -13,17 +13,20 @@ import org.babyfish.jimmer.sql.ast.mutation.SimpleSaveResult;
 import org.babyfish.jimmer.sql.ast.tuple.Tuple6;
 import org.babyfish.jimmer.sql.exception.SaveException;
 import org.lionhead.advancestarter.entity.*;
+import org.lionhead.advancestarter.tenant.TenantContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class Part3AdvanceStarterApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(Part3AdvanceStarterApplication.class);
@@ -34,9 +37,11 @@ public class Part3AdvanceStarterApplication {
 
     @Bean
     public ApplicationRunner applicationRunner(JSqlClient sqlClient) {
-        return args -> {
+        // 演示代码读取全部租户的数据
+        return args -> TenantContext.call(TenantContext.ADMIN, () -> {
              complexFetcher(sqlClient);
-        };
+             return null;
+        });
     }
 
     private void singeTableCRUD(JSqlClient sqlClient) {
@@ -0,0 +1,302 @@
+package org.lionhead.advancestarter.async;
+
+import org.babyfish.jimmer.DraftConsumer;
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.meta.TargetLevel;
+import org.babyfish.jimmer.runtime.DraftSpi;
+import org.babyfish.jimmer.runtime.ImmutableSpi;
+import org.babyfish.jimmer.runtime.Internal;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.ast.Executable;
+import org.babyfish.jimmer.sql.ast.mutation.BatchSaveResult;
+import org.babyfish.jimmer.sql.ast.mutation.SimpleSaveResult;
+import org.babyfish.jimmer.sql.fetcher.Fetcher;
+import org.babyfish.jimmer.sql.fetcher.Field;
+import org.lionhead.advancestarter.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * JSqlClient 的异步门面
+ * 所有调用在有界线程池中执行，立即返回 CompletableFuture；
+ * 对返回的 future 调用 cancel 会取消排队中的任务，并通过 CancellableExecutor 中断正在执行的 JDBC 语句。
+ * 注意：
+ * 1. 任务在线程池线程中执行，不会加入调用方的事务
+ * 2. 只有本类直接返回的 future 可以传递取消，thenApply 等派生出的 future 被取消时不会向上传递
+ */
+public class AsyncSqlClient {
+
+    private final JSqlClient sqlClient;
+
+    private final ExecutorService executor;
+
+    public AsyncSqlClient(JSqlClient sqlClient, ExecutorService executor) {
+        this.sqlClient = sqlClient;
+        this.executor = executor;
+    }
+
+    /**
+     * 执行任意查询或保存指令，例如：
+     * <pre>
+     * asyncSqlClient.execute(sql -> sql.createQuery(table).where(...).select(table))
+     * </pre>
+     */
+    public <R> CompletableFuture<R> execute(Function<JSqlClient, ? extends Executable<R>> statement) {
+        return supply(sql -> statement.apply(sql).execute());
+    }
+
+    public <E> CompletableFuture<E> findById(Class<E> type, Object id) {
+        return supply(sql -> sql.findById(type, id));
+    }
+
+    public <E> CompletableFuture<E> findById(Fetcher<E> fetcher, Object id) {
+        ParallelFuture<E> result = new ParallelFuture<>();
+        result.register(load(fetcher, (sql, rootFetcher) -> sql.findByIds(rootFetcher, List.of(id))))
+                .whenComplete((list, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else {
+                        result.complete(list.isEmpty() ? null : list.get(0));
+                    }
+                });
+        return result;
+    }
+
+    public <E> CompletableFuture<List<E>> findByIds(Fetcher<E> fetcher, Collection<?> ids) {
+        return load(fetcher, (sql, rootFetcher) -> sql.findByIds(rootFetcher, ids));
+    }
+
+    public <E> CompletableFuture<SimpleSaveResult<E>> save(E entity) {
+        return supply(sql -> sql.save(entity));
+    }
+
+    public <E> CompletableFuture<BatchSaveResult<E>> saveEntities(Collection<E> entities) {
+        return supply(sql -> sql.saveEntities(entities));
+    }
+
+    /**
+     * 按 fetcher 抓取对象，彼此独立的集合关联属性和计算属性在线程池中并行加载
+     * rootQuery 使用传入的根 fetcher（去掉了需要并行加载的属性）查询聚合根，例如：
+     * <pre>
+     * asyncSqlClient.fetch(fetcher, (sql, rootFetcher) -> sql.createQuery(table)
+     *         .where(table.price().gt(50.0))
+     *         .select(table.fetch(rootFetcher)))
+     * </pre>
+     * 基于外键的引用关联（例如 Book.bookStore）默认留在根查询中，外键随聚合根一起查出，不值得单独一个任务；
+     * 只有它的子 fetcher 还要继续加载关联或计算属性时（例如 bookStore(BookStoreFetcher.$.bookCount())）才单独并行；
+     * 每个并行属性按 id 做一次只取 id 和该属性的主键查询，由 Jimmer 完成该属性的批量加载，
+     * 所以字段上配置的过滤器、batchSize、递归深度等都保持不变；只在第一层并行，子 fetcher 内部仍由 Jimmer 顺序加载
+     */
+    public <E> CompletableFuture<List<E>> fetch(
+            Fetcher<E> fetcher,
+            BiFunction<JSqlClient, Fetcher<E>, ? extends Executable<List<E>>> rootQuery
+    ) {
+        return load(fetcher, (sql, rootFetcher) -> rootQuery.apply(sql, rootFetcher).execute());
+    }
+
+    private <E> CompletableFuture<List<E>> load(
+            Fetcher<E> fetcher,
+            BiFunction<JSqlClient, Fetcher<E>, List<E>> rootQuery
+    ) {
+        List<String> parallelProps = parallelProps(fetcher);
+        if (parallelProps.size() < 2) {
+            return supply(sql -> rootQuery.apply(sql, fetcher));
+        }
+        Fetcher<E> rootFetcher = fetcher;
+        for (String prop : parallelProps) {
+            rootFetcher = rootFetcher.remove(prop);
+        }
+        Fetcher<E> finalRootFetcher = rootFetcher;
+        ParallelFuture<List<E>> result = new ParallelFuture<>();
+        CancellableFuture<List<E>> roots = result.register(
+                supply(sql -> rootQuery.apply(sql, finalRootFetcher))
+        );
+        roots.whenComplete((rootList, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            if (rootList.isEmpty()) {
+                result.complete(rootList);
+                return;
+            }
+            ImmutableType type = fetcher.getImmutableType();
+            List<Object> ids = new ArrayList<>(rootList.size());
+            for (E root : rootList) {
+                ids.add(((ImmutableSpi) root).__get(type.getIdProp().getId()));
+            }
+            List<CompletableFuture<List<E>>> parts = new ArrayList<>(parallelProps.size());
+            for (String prop : parallelProps) {
+                Fetcher<E> partFetcher = onlyProp(fetcher, prop);
+                parts.add(result.register(supply(sql -> sql.findByIds(partFetcher, ids))));
+            }
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).whenComplete((v, partEx) -> {
+                if (partEx != null) {
+                    result.completeExceptionally(partEx);
+                    return;
+                }
+                List<List<E>> partResults = new ArrayList<>(parts.size());
+                for (CompletableFuture<List<E>> part : parts) {
+                    partResults.add(part.join());
+                }
+                result.complete(merge(type, rootList, parallelProps, partResults));
+            });
+        });
+        return result;
+    }
+
+    private <T> CancellableFuture<T> supply(Function<JSqlClient, T> action) {
+        CancellableFuture<T> future = new CancellableFuture<>();
+        // 租户过滤器依赖线程上的租户，传递给线程池中的任务
+        String tenant = TenantContext.get();
+        try {
+            executor.execute(() -> {
+                // 排队期间已被取消
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(TenantContext.call(
+                            tenant,
+                            () -> future.cancellation.call(() -> action.apply(sqlClient))
+                    ));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // 集合关联和带 TransientResolver 的计算属性都需要额外的查询，可以并行加载；
+    // 引用关联的外键就在根表中，拆出去反而要多查一次聚合根，只有子对象还要继续加载关联时才值得拆出去
+    private static List<String> parallelProps(Fetcher<?> fetcher) {
+        List<String> props = new ArrayList<>();
+        for (Field field : fetcher.getFieldMap().values()) {
+            ImmutableProp prop = field.getProp();
+            if (prop.isReferenceList(TargetLevel.ENTITY) || prop.hasTransientResolver()) {
+                props.add(prop.getName());
+            } else if (prop.isReference(TargetLevel.ENTITY) && needsQueries(field.getChildFetcher())) {
+                props.add(prop.getName());
+            }
+        }
+        return props;
+    }
+
+    private static boolean needsQueries(Fetcher<?> fetcher) {
+        if (fetcher == null) {
+            return false;
+        }
+        for (Field field : fetcher.getFieldMap().values()) {
+            ImmutableProp prop = field.getProp();
+            if (prop.isAssociation(TargetLevel.ENTITY) || prop.hasTransientResolver()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 只保留 id 和指定属性（以及该属性上的全部配置）
+    private static <E> Fetcher<E> onlyProp(Fetcher<E> fetcher, String propName) {
+        Fetcher<E> result = fetcher;
+        for (Field field : fetcher.getFieldMap().values()) {
+            ImmutableProp prop = field.getProp();
+            if (!prop.isId() && !prop.getName().equals(propName)) {
+                result = result.remove(prop.getName());
+            }
+        }
+        return result;
+    }
+
+    // 把并行加载的属性合并回聚合根；两次查询之间被删除的聚合根直接丢弃
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> merge(
+            ImmutableType type,
+            List<E> roots,
+            List<String> props,
+            List<List<E>> partResults
+    ) {
+        List<Map<Object, E>> parts = new ArrayList<>(partResults.size());
+        for (List<E> partResult : partResults) {
+            Map<Object, E> map = new HashMap<>((partResult.size() * 4 + 2) / 3);
+            for (E part : partResult) {
+                map.put(((ImmutableSpi) part).__get(type.getIdProp().getId()), part);
+            }
+            parts.add(map);
+        }
+        List<E> merged = new ArrayList<>(roots.size());
+        for (E root : roots) {
+            Object id = ((ImmutableSpi) root).__get(type.getIdProp().getId());
+            List<ImmutableSpi> sources = new ArrayList<>(parts.size());
+            for (Map<Object, E> part : parts) {
+                E source = part.get(id);
+                if (source == null) {
+                    break;
+                }
+                sources.add((ImmutableSpi) source);
+            }
+            if (sources.size() < parts.size()) {
+                continue;
+            }
+            merged.add((E) Internal.produce(type, root, (DraftConsumer<DraftSpi>) draft -> {
+                for (int i = 0; i < props.size(); i++) {
+                    ImmutableProp prop = type.getProp(props.get(i));
+                    draft.__set(prop.getId(), sources.get(i).__get(prop.getId()));
+                }
+            }));
+        }
+        return merged;
+    }
+
+    private static class CancellableFuture<T> extends CompletableFuture<T> {
+
+        final QueryCancellation cancellation = new QueryCancellation();
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancellation.cancel();
+            }
+            return cancelled;
+        }
+    }
+
+    // 由多个子任务组成的 future，取消时一并取消全部子任务
+    private static class ParallelFuture<T> extends CompletableFuture<T> {
+
+        private final List<CompletableFuture<?>> children = new CopyOnWriteArrayList<>();
+
+        <F extends CompletableFuture<?>> F register(F child) {
+            children.add(child);
+            if (isCancelled()) {
+                child.cancel(true);
+            }
+            return child;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                for (CompletableFuture<?> child : children) {
+                    child.cancel(mayInterruptIfRunning);
+                }
+            }
+            return cancelled;
+        }
+    }
+}
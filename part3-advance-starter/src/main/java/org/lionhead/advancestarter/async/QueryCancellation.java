@@ -0,0 +1,95 @@
+package org.lionhead.advancestarter.async;
+
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * 一个异步任务的取消信号
+ * 任务线程执行期间绑定到 ThreadLocal，CancellableExecutor 在每条语句前后登记正在使用的连接，
+ * 取消时通过 PGConnection.cancelQuery() 让服务端中断正在执行的语句，尚未开始的语句直接抛出 CancellationException
+ */
+public final class QueryCancellation {
+
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private boolean cancelled;
+
+    private Connection running;
+
+    private boolean cancelling;
+
+    static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    <T> T call(Supplier<T> action) {
+        QueryCancellation old = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (old != null) {
+                CURRENT.set(old);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    synchronized void enter(Connection con) {
+        if (cancelled) {
+            throw new CancellationException("The async query has been cancelled");
+        }
+        running = con;
+    }
+
+    // 正在对该连接发出取消请求时等待其完成：连接归还连接池之后不能再对它发出取消请求，否则会取消其他查询的语句
+    synchronized void exit() {
+        boolean interrupted = false;
+        while (cancelling) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        running = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    // cancelQuery 需要建立新的网络连接，不在持有锁时调用，避免阻塞 isCancelled、enter 等调用
+    public void cancel() {
+        Connection con;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            con = running;
+            if (con == null) {
+                return;
+            }
+            cancelling = true;
+        }
+        try {
+            con.unwrap(PGConnection.class).cancelQuery();
+        } catch (SQLException e) {
+            // 取消失败不影响调用方，语句会正常执行结束
+        } finally {
+            synchronized (this) {
+                cancelling = false;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.lionhead.advancestarter.cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存命中统计，按缓存名称（实体类型或关联属性）分组
+ */
+public class CacheStatistics {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public Counter counter(String cacheName) {
+        return counters.computeIfAbsent(cacheName, k -> new Counter());
+    }
+
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> map = new TreeMap<>();
+        counters.forEach((name, counter) -> map.put(name, counter.snapshot()));
+        return map;
+    }
+
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+    }
+
+    public static class Counter {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder invalidations = new LongAdder();
+
+        void hit(long count) {
+            hits.add(count);
+        }
+
+        void miss(long count) {
+            misses.add(count);
+        }
+
+        void invalidate(long count) {
+            invalidations.add(count);
+        }
+
+        Snapshot snapshot() {
+            long h = hits.sum();
+            long m = misses.sum();
+            return new Snapshot(h, m, invalidations.sum(), h + m == 0 ? 0 : (double) h / (h + m));
+        }
+
+        void reset() {
+            hits.reset();
+            misses.reset();
+            invalidations.reset();
+        }
+    }
+
+    public record Snapshot(long hits, long misses, long invalidations, double hitRate) {
+    }
+}
@@ -0,0 +1,90 @@
+package org.lionhead.advancestarter.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.cache.CacheEnvironment;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * 按全局过滤器参数分区的缓存
+ * 目标类型带有 CacheableFilter（如 Book 的租户过滤器）时，Jimmer 要求关联缓存和计算属性缓存支持参数；
+ * 这里为每组参数（即每个租户）创建一个独立的缓存，失效时清理所有分区。
+ * 分区数量有上限，超出后按最近最少使用淘汰整个分区，被淘汰租户的数据下次访问时重新加载
+ */
+public class ParameterizedCache<K, V> implements Cache.Parameterized<K, V> {
+
+    private final ImmutableType type;
+
+    private final ImmutableProp prop;
+
+    private final Supplier<Cache<K, V>> partitionFactory;
+
+    private final Map<SortedMap<String, Object>, Cache<K, V>> partitions;
+
+    /**
+     * @param maxPartitions    最多保留的分区（租户）数量
+     * @param partitionFactory 创建单个分区，总容量最多为 maxPartitions 乘以单个分区的大小，所以分区应比不分区的缓存小
+     */
+    public ParameterizedCache(ImmutableProp prop, int maxPartitions, Supplier<Cache<K, V>> partitionFactory) {
+        this.type = prop.getDeclaringType();
+        this.prop = prop;
+        this.partitionFactory = partitionFactory;
+        // 淘汰在调用线程中执行，分区数量不会因为后台清理滞后而超出上限
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(maxPartitions)
+                .executor(Runnable::run)
+                .<SortedMap<String, Object>, Cache<K, V>>build()
+                .asMap();
+    }
+
+    @Override
+    public ImmutableType type() {
+        return type;
+    }
+
+    @Override
+    public ImmutableProp prop() {
+        return prop;
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAll(@NotNull Collection<K> keys, @NotNull CacheEnvironment<K, V> env) {
+        return getAll(keys, Collections.emptySortedMap(), env);
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAll(
+            @NotNull Collection<K> keys,
+            @NotNull SortedMap<String, Object> parameterMap,
+            @NotNull CacheEnvironment<K, V> env
+    ) {
+        Cache<K, V> partition = partitions.get(parameterMap);
+        if (partition == null) {
+            // 复制一份作为 key，避免调用方之后修改参数 Map
+            partition = partitions.computeIfAbsent(new TreeMap<>(parameterMap), k -> partitionFactory.get());
+        }
+        return partition.getAll(keys, env);
+    }
+
+    int partitionCount() {
+        return partitions.size();
+    }
+
+    @Override
+    public void deleteAll(@NotNull Collection<K> keys, Object reason) {
+        for (Cache<K, V> partition : partitions.values()) {
+            partition.deleteAll(keys, reason);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.lionhead.advancestarter.cache;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.cache.CacheEnvironment;
+import org.babyfish.jimmer.sql.cache.CacheLoader;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 给 Jimmer 缓存加上命中统计的装饰器
+ * 缓存未命中的 key 会交给 CacheEnvironment 中的 loader 去数据库加载，
+ * 所以 loader 收到的 key 数量就是未命中数量，其余的都是命中
+ */
+public class StatisticsCache<K, V> implements Cache<K, V> {
+
+    private final Cache<K, V> raw;
+
+    private final CacheStatistics.Counter counter;
+
+    public StatisticsCache(Cache<K, V> raw, CacheStatistics.Counter counter) {
+        this.raw = raw;
+        this.counter = counter;
+    }
+
+    @Override
+    public ImmutableType type() {
+        return raw.type();
+    }
+
+    @Override
+    public ImmutableProp prop() {
+        return raw.prop();
+    }
+
+    @NotNull
+    @Override
+    public Map<K, V> getAll(@NotNull Collection<K> keys, @NotNull CacheEnvironment<K, V> env) {
+        CacheLoader<K, V> rawLoader = env.getLoader();
+        long[] missed = {0};
+        CacheLoader<K, V> countingLoader = missedKeys -> {
+            missed[0] += missedKeys.size();
+            return rawLoader.loadAll(missedKeys);
+        };
+        Map<K, V> map = raw.getAll(
+                keys,
+                new CacheEnvironment<>(
+                        env.getSqlClient(),
+                        env.getConnection(),
+                        countingLoader,
+                        env.isRequiresNewDraftContext()
+                )
+        );
+        counter.miss(missed[0]);
+        counter.hit(Math.max(0, keys.size() - missed[0]));
+        return map;
+    }
+
+    @Override
+    public void deleteAll(@NotNull Collection<K> keys, Object reason) {
+        counter.invalidate(keys.size());
+        raw.deleteAll(keys, reason);
+    }
+}
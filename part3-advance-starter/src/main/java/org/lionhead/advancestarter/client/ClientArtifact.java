@@ -0,0 +1,66 @@
+package org.lionhead.advancestarter.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 一份生成好的客户端文件及其 gzip 版本
+ * ETag 取内容的 SHA-256，重启后内容不变则 ETag 不变；两种编码是不同的表示，ETag 也不同
+ *
+ * @param gzipBody 压缩后没有明显变小（如 ts.zip 本身已压缩）时为 null，只提供原始内容
+ */
+record ClientArtifact(
+        byte[] body,
+        byte[] gzipBody,
+        String contentType,
+        String contentDisposition,
+        String etag,
+        String gzipEtag
+) {
+
+    static ClientArtifact of(byte[] body, String contentType, String contentDisposition, int compressMinSize) {
+        String hash = sha256(body);
+        byte[] gzipBody = body.length >= compressMinSize ? gzip(body) : null;
+        if (gzipBody != null && gzipBody.length > body.length * 9L / 10) {
+            gzipBody = null;
+        }
+        return new ClientArtifact(
+                body,
+                gzipBody,
+                contentType,
+                contentDisposition,
+                '"' + hash + '"',
+                gzipBody != null ? "\"" + hash + "-gzip\"" : null
+        );
+    }
+
+    // 只压缩一次，用最高压缩级别
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
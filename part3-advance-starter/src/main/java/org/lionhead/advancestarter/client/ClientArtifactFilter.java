@@ -0,0 +1,253 @@
+package org.lionhead.advancestarter.client;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.lionhead.advancestarter.config.ClientArtifactProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * jimmer.client 的 /ts.zip、/openapi.yaml、/openapi.html 每次请求都会根据元数据重新生成，
+ * 前端 CI 频繁拉取时白白消耗 CPU。这里在进程内第一次 GET 时让 Jimmer 生成一次并缓存：
+ * 1. 强 ETag（内容的 SHA-256），If-None-Match 命中时直接返回 304
+ * 2. 预先压缩好的 gzip 版本，按 Accept-Encoding 选择，不再逐次压缩
+ * 缓存键只包含路径和 Jimmer 识别的 groups 参数，其他查询参数不影响生成结果，一律忽略；
+ * 缓存条目数有上限，任意的 groups 取值不会让缓存无限增长
+ */
+@Component
+@ConditionalOnProperty(prefix = "lionhead.client-artifacts", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ClientArtifactFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientArtifactFilter.class);
+
+    @Resource
+    private Environment environment;
+
+    @Resource
+    private ClientArtifactProperties properties;
+
+    // Jimmer 的 /ts.zip、/openapi.yaml、/openapi.html 只读取这个查询参数
+    static final String GROUPS = "groups";
+
+    private Map<String, ClientArtifact> artifacts;
+
+    // 正在生成的缓存键，同一个键只生成一份，不同的键互不阻塞
+    private final Map<String, ReentrantLock> generating = new ConcurrentHashMap<>();
+
+    private final Set<String> paths = new HashSet<>();
+
+    @PostConstruct
+    public void init() {
+        artifacts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .executor(Runnable::run)
+                .<String, ClientArtifact>build()
+                .asMap();
+        for (String name : new String[]{
+                "jimmer.client.ts.path",
+                "jimmer.client.openapi.path",
+                "jimmer.client.openapi.ui-path"
+        }) {
+            String path = environment.getProperty(name);
+            if (path != null && !path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        return !paths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String key = cacheKey(request.getRequestURI(), request.getParameter(GROUPS));
+        ClientArtifact artifact = artifacts.get(key);
+        if (artifact == null) {
+            // HEAD 请求拿不到响应体，不用来生成缓存
+            if (!"GET".equals(request.getMethod())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            artifact = generate(key, request, response, filterChain);
+            if (artifact == null) {
+                return;
+            }
+        }
+        serve(artifact, request, response);
+    }
+
+    // 同一个键同一时刻只生成一份，并发的第一批请求等待而不是重复生成
+    private ClientArtifact generate(
+            String key,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        ReentrantLock lock = generating.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            ClientArtifact artifact = artifacts.get(key);
+            if (artifact != null) {
+                return artifact;
+            }
+            return doGenerate(key, request, response, filterChain);
+        } finally {
+            lock.unlock();
+            generating.remove(key, lock);
+        }
+    }
+
+    private ClientArtifact doGenerate(
+            String key,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        long start = System.nanoTime();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return null;
+        }
+        ClientArtifact artifact = ClientArtifact.of(
+                wrapper.getContentAsByteArray(),
+                wrapper.getContentType(),
+                wrapper.getHeader(HttpHeaders.CONTENT_DISPOSITION),
+                properties.getCompressMinSize()
+        );
+        artifacts.put(key, artifact);
+        logger.info(
+                "Cached client artifact {} in {} ms: {} bytes, gzip {} bytes",
+                key,
+                (System.nanoTime() - start) / 1_000_000,
+                artifact.body().length,
+                artifact.gzipBody() != null ? artifact.gzipBody().length : "-"
+        );
+        return artifact;
+    }
+
+    private void serve(
+            ClientArtifact artifact,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        boolean gzip = artifact.gzipBody() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? artifact.gzipEtag() : artifact.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, properties.getCacheControl());
+        if (artifact.gzipBody() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = gzip ? artifact.gzipBody() : artifact.body();
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (artifact.contentType() != null) {
+            response.setContentType(artifact.contentType());
+        }
+        if (artifact.contentDisposition() != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, artifact.contentDisposition());
+        }
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        if ("GET".equals(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // groups 按逗号拆分后去重、排序，书写顺序不同的同一组合共用一份缓存
+    static String cacheKey(String uri, String groups) {
+        if (groups == null) {
+            return uri;
+        }
+        String normalized = Arrays.stream(groups.split(","))
+                .map(String::trim)
+                .filter(it -> !it.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+        return normalized.isEmpty() ? uri : uri + '?' + GROUPS + '=' + normalized;
+    }
+
+    // If-None-Match 使用弱比较：忽略 W/ 前缀
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // gzip 或 * 且 q 不为 0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] items = part.split(";");
+            String coding = items[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            double q = 1;
+            for (int i = 1; i < items.length; i++) {
+                String param = items[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (q > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package org.lionhead.advancestarter.config;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.async.AsyncSqlClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步查询门面，线程数和队列都有上限，避免异步调用耗尽连接池
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService jimmerAsyncExecutor(AsyncProperties properties) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "jimmer-async-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(
+                properties.getPoolSize(),
+                properties.getPoolSize(),
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Bean
+    public AsyncSqlClient asyncSqlClient(JSqlClient sqlClient, ExecutorService jimmerAsyncExecutor) {
+        return new AsyncSqlClient(sqlClient, jimmerAsyncExecutor);
+    }
+}
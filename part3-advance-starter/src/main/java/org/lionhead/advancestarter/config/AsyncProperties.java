@@ -0,0 +1,18 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 异步查询线程池配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.async")
+public class AsyncProperties {
+
+    // 同时执行的语句数上限，应小于连接池大小，给同步请求留出连接
+    private int poolSize = 8;
+
+    // 排队任务上限，超出后返回的 CompletableFuture 直接以 RejectedExecutionException 失败
+    private int queueCapacity = 1000;
+}
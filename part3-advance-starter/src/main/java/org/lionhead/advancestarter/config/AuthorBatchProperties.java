@@ -0,0 +1,18 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 作者批量导入配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.author.batch")
+public class AuthorBatchProperties {
+
+    // 每个分块保存的作者数量，也就是一次 saveEntitiesCommand 的大小
+    private int chunkSize = 1000;
+
+    // 单次请求允许指定的最大分块，防止调用方传入过大的值把内存撑爆
+    private int maxChunkSize = 10000;
+}
@@ -0,0 +1,18 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 图书流式导出配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.book.export")
+public class BookExportProperties {
+
+    // JDBC fetch size，同时也是 Jimmer 批量加载关联对象的窗口大小
+    private int fetchSize = 500;
+
+    // 请求参数 fetchSize 的上限，每个窗口的数据都在内存中
+    private int maxFetchSize = 5000;
+}
@@ -0,0 +1,16 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 图书游标分页配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.book.page")
+public class BookPageProperties {
+
+    private int defaultSize = 20;
+
+    private int maxSize = 200;
+}
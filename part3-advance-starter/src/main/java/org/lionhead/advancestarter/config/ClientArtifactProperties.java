@@ -0,0 +1,24 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * jimmer.client 生成的 /ts.zip、/openapi.yaml、/openapi.html 的缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.client-artifacts")
+public class ClientArtifactProperties {
+
+    // 关闭后每次请求都由 Jimmer 重新生成
+    private boolean enabled = true;
+
+    // 小于该大小的内容不压缩
+    private int compressMinSize = 1024;
+
+    // 最多缓存的条目数（路径 × groups 组合），超出后淘汰最近最少使用的
+    private int maxEntries = 32;
+
+    // 内容只在重启后变化，客户端每次用 If-None-Match 重新验证即可
+    private String cacheControl = "no-cache";
+}
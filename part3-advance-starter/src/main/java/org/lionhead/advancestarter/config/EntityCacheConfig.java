@@ -0,0 +1,148 @@
+package org.lionhead.advancestarter.config;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.sql.cache.AbstractCacheFactory;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.cache.CacheFactory;
+import org.babyfish.jimmer.sql.cache.caffeine.CaffeineValueBinder;
+import org.babyfish.jimmer.sql.cache.chain.ChainCacheBuilder;
+import org.lionhead.advancestarter.cache.CacheStatistics;
+import org.lionhead.advancestarter.cache.ParameterizedCache;
+import org.lionhead.advancestarter.cache.StatisticsCache;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorProps;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Jimmer 二级缓存
+ * jimmer-spring-boot-starter 会自动使用容器中的 CacheFactory，
+ * 配合 jimmer.trigger-type: TRANSACTION_ONLY，通过 JSqlClient 执行的保存和删除会自动清理受影响的缓存
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "lionhead.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+
+    private static final Set<Class<?>> CACHED_TYPES = Set.of(BookStore.class, Book.class, Author.class);
+
+    private static final Set<ImmutableProp> CACHED_ASSOCIATIONS = Set.of(
+            BookProps.BOOK_STORE.unwrap(),
+            BookProps.AUTHORS.unwrap(),
+            BookStoreProps.BOOKS.unwrap(),
+            AuthorProps.BOOKS.unwrap()
+    );
+
+    private static final Set<ImmutableProp> CACHED_CALCULATIONS = Set.of(
+            BookStoreProps.BOOK_COUNT.unwrap(),
+            BookStoreProps.AVG_PRICE.unwrap()
+    );
+
+    // 结果受 Book 租户过滤器影响的属性，缓存需要按租户分区
+    private static final Set<ImmutableProp> TENANT_PARTITIONED = Set.of(
+            BookStoreProps.BOOKS.unwrap(),
+            AuthorProps.BOOKS.unwrap(),
+            BookStoreProps.BOOK_COUNT.unwrap(),
+            BookStoreProps.AVG_PRICE.unwrap()
+    );
+
+    @Bean
+    public CacheStatistics cacheStatistics() {
+        return new CacheStatistics();
+    }
+
+    @Bean
+    public CacheFactory cacheFactory(EntityCacheProperties properties, CacheStatistics statistics) {
+        return new AbstractCacheFactory() {
+
+            // 对象缓存：findById 以及关联对象按 id 加载时使用
+            @Override
+            public Cache<?, ?> createObjectCache(@NotNull ImmutableType type) {
+                if (!CACHED_TYPES.contains(type.getJavaClass())) {
+                    return null;
+                }
+                return withStatistics(
+                        type.toString(),
+                        new ChainCacheBuilder<Object, Object>()
+                                .add(
+                                        CaffeineValueBinder
+                                                .<Object, Object>forObject(type)
+                                                .maximumSize(properties.getObjectMaximumSize())
+                                                .duration(properties.getObjectTtl())
+                                                .build()
+                                )
+                                .build()
+                );
+            }
+
+            // 引用关联缓存：Book.bookStore
+            @Override
+            public Cache<?, ?> createAssociatedIdCache(@NotNull ImmutableProp prop) {
+                return createPropCache(prop, properties.getAssociationTtl());
+            }
+
+            // 集合关联缓存：Book.authors、BookStore.books、Author.books
+            @Override
+            public Cache<?, List<?>> createAssociatedIdListCache(@NotNull ImmutableProp prop) {
+                return createPropCache(prop, properties.getAssociationTtl());
+            }
+
+            // 计算属性缓存：BookStore.bookCount、BookStore.avgPrice，由 resolver 的 getAffectedSourceIds 失效
+            @Override
+            public Cache<?, ?> createResolverCache(@NotNull ImmutableProp prop) {
+                if (!properties.isResolverEnabled() || !CACHED_CALCULATIONS.contains(prop)) {
+                    return null;
+                }
+                return buildPropCache(prop, properties.getResolverTtl());
+            }
+
+            private <K, V> Cache<K, V> createPropCache(ImmutableProp prop, Duration ttl) {
+                if (!CACHED_ASSOCIATIONS.contains(prop)) {
+                    return null;
+                }
+                return buildPropCache(prop, ttl);
+            }
+
+            private <K, V> Cache<K, V> buildPropCache(ImmutableProp prop, Duration ttl) {
+                if (TENANT_PARTITIONED.contains(prop)) {
+                    return new ParameterizedCache<>(
+                            prop,
+                            properties.getMaxTenantPartitions(),
+                            () -> buildPartition(prop, ttl, properties.getTenantPartitionMaximumSize())
+                    );
+                }
+                return buildPartition(prop, ttl, properties.getAssociationMaximumSize());
+            }
+
+            private <K, V> Cache<K, V> buildPartition(ImmutableProp prop, Duration ttl, int maximumSize) {
+                return withStatistics(
+                        prop.toString(),
+                        new ChainCacheBuilder<K, V>()
+                                .add(
+                                        CaffeineValueBinder
+                                                .<K, V>forProp(prop)
+                                                .maximumSize(maximumSize)
+                                                .duration(ttl)
+                                                .build()
+                                )
+                                .build()
+                );
+            }
+
+            @SuppressWarnings("unchecked")
+            private <K, V> Cache<K, V> withStatistics(String name, Cache<?, ?> cache) {
+                return new StatisticsCache<>((Cache<K, V>) cache, statistics.counter(name));
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Jimmer 二级缓存配置（进程内 Caffeine）
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.cache")
+public class EntityCacheProperties {
+
+    private boolean enabled = true;
+
+    // 每个对象缓存最多保存的实体数量
+    private int objectMaximumSize = 4096;
+
+    private Duration objectTtl = Duration.ofMinutes(10);
+
+    // 每个关联缓存最多保存的 key 数量
+    private int associationMaximumSize = 4096;
+
+    // 按租户分区的缓存最多保留的租户数，超出后淘汰最近最少使用的租户
+    private int maxTenantPartitions = 64;
+
+    // 按租户分区的缓存中每个租户最多保存的 key 数量
+    private int tenantPartitionMaximumSize = 512;
+
+    // 关联缓存更容易因为中间表变化而失效，过期时间短一些
+    private Duration associationTtl = Duration.ofMinutes(5);
+
+    // 是否缓存计算属性（BookStore.bookCount、avgPrice）
+    private boolean resolverEnabled = true;
+
+    private Duration resolverTtl = Duration.ofMinutes(5);
+}
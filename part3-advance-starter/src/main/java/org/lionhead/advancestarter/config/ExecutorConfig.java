@@ -0,0 +1,109 @@
+package org.lionhead.advancestarter.config;
+
+import org.babyfish.jimmer.sql.runtime.DefaultExecutor;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.lionhead.advancestarter.async.CancellableExecutor;
+import org.lionhead.advancestarter.executor.AsyncLogExecutor;
+import org.lionhead.advancestarter.executor.AsyncSqlLogger;
+import org.lionhead.advancestarter.executor.JimmerSqlEndpoint;
+import org.lionhead.advancestarter.executor.MetricsExecutor;
+import org.lionhead.advancestarter.executor.SlowQueryExecutor;
+import org.lionhead.advancestarter.executor.SlowQueryRecorder;
+import org.lionhead.advancestarter.executor.SqlLogEndpoint;
+import org.lionhead.advancestarter.executor.StatementMetrics;
+import org.lionhead.advancestarter.sqlcache.ShapeCaptureExecutor;
+import org.lionhead.advancestarter.sqlcache.SqlShapeCache;
+import org.lionhead.advancestarter.sqlcache.SqlShapeEndpoint;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * jimmer-spring-boot-starter 会使用容器中的 Executor，这里把装饰器链组装起来
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean
+    public StatementMetrics statementMetrics(ExecutorProperties properties) {
+        return new StatementMetrics(properties.getMaxStatements());
+    }
+
+    @Bean
+    public SqlShapeCache sqlShapeCache(ExecutorProperties properties) {
+        return new SqlShapeCache(properties.getShapeCacheMaxEntries());
+    }
+
+    @Bean
+    public SqlShapeEndpoint sqlShapeEndpoint(SqlShapeCache sqlShapeCache) {
+        return new SqlShapeEndpoint(sqlShapeCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "lionhead.executor.slow-query", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SlowQueryRecorder slowQueryRecorder(ExecutorProperties properties, DataSource dataSource) {
+        ExecutorProperties.SlowQuery slowQuery = properties.getSlowQuery();
+        return new SlowQueryRecorder(
+                dataSource,
+                slowQuery.getCapacity(),
+                slowQuery.isExplainAnalyze(),
+                slowQuery.getExplainInterval()
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "lionhead.executor.sql-log", name = "enabled", havingValue = "true")
+    public AsyncSqlLogger asyncSqlLogger(ExecutorProperties properties) {
+        ExecutorProperties.SqlLog sqlLog = properties.getSqlLog();
+        return new AsyncSqlLogger(
+                sqlLog.getCapacity(),
+                sqlLog.getDefaultSampleRate(),
+                sqlLog.getSampleRates(),
+                sqlLog.isPretty()
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "lionhead.executor.sql-log", name = "enabled", havingValue = "true")
+    public SqlLogEndpoint sqlLogEndpoint(AsyncSqlLogger asyncSqlLogger) {
+        return new SqlLogEndpoint(asyncSqlLogger);
+    }
+
+    @Bean
+    public Executor executor(
+            ExecutorProperties properties,
+            StatementMetrics statementMetrics,
+            ObjectProvider<SlowQueryRecorder> slowQueryRecorder,
+            ObjectProvider<AsyncSqlLogger> asyncSqlLogger
+    ) {
+        // 最内层：捕获 Jimmer 最终执行的 SQL，供查询形状缓存使用
+        Executor executor = new ShapeCaptureExecutor(DefaultExecutor.INSTANCE);
+        // 登记异步任务正在使用的连接，使 AsyncSqlClient 的取消能中断语句
+        executor = new CancellableExecutor(executor);
+        SlowQueryRecorder recorder = slowQueryRecorder.getIfAvailable();
+        if (recorder != null) {
+            executor = new SlowQueryExecutor(
+                    executor,
+                    recorder,
+                    properties.getSlowQuery().getThreshold(),
+                    properties.getSlowQuery().getSampleRate()
+            );
+        }
+        AsyncSqlLogger sqlLogger = asyncSqlLogger.getIfAvailable();
+        if (sqlLogger != null) {
+            executor = new AsyncLogExecutor(executor, sqlLogger);
+        }
+        if (properties.isMetricsEnabled()) {
+            executor = new MetricsExecutor(executor, statementMetrics);
+        }
+        return executor;
+    }
+
+    @Bean
+    public JimmerSqlEndpoint jimmerSqlEndpoint(StatementMetrics statementMetrics) {
+        return new JimmerSqlEndpoint(statementMetrics);
+    }
+}
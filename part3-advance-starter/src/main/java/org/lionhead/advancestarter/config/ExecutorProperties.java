@@ -0,0 +1,67 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Jimmer Executor 装饰器配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.executor")
+public class ExecutorProperties {
+
+    // 是否记录语句指标
+    private boolean metricsEnabled = true;
+
+    // 最多单独统计多少种语句，超出部分归为一组
+    private int maxStatements = 1000;
+
+    // 查询形状缓存最多保存的形状数量
+    private int shapeCacheMaxEntries = 256;
+
+    private SlowQuery slowQuery = new SlowQuery();
+
+    private SqlLog sqlLog = new SqlLog();
+
+    @Data
+    public static class SlowQuery {
+
+        private boolean enabled = true;
+
+        // 超过该耗时的语句视为慢查询
+        private Duration threshold = Duration.ofMillis(500);
+
+        // 慢查询的采样率，0 ~ 1
+        private double sampleRate = 1.0;
+
+        // 环形缓冲区大小
+        private int capacity = 200;
+
+        // 查询语句是否使用 EXPLAIN (ANALYZE, BUFFERS)，会在独立连接上再执行一次该查询
+        private boolean explainAnalyze = true;
+
+        // 同一条 SQL 采集执行计划的最小间隔
+        private Duration explainInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class SqlLog {
+
+        // 开启后应关闭 jimmer.show-sql，避免同步和异步日志同时输出
+        private boolean enabled = false;
+
+        // 队列容量，满了之后的日志被丢弃并计数
+        private int capacity = 10000;
+
+        private double defaultSampleRate = 1.0;
+
+        // SQL 片段 -> 采样率，按配置顺序匹配第一个
+        private Map<String, Double> sampleRates = new LinkedHashMap<>();
+
+        private boolean pretty = true;
+    }
+}
@@ -0,0 +1,28 @@
+package org.lionhead.advancestarter.config;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import org.lionhead.advancestarter.graphql.ListAwareComplexityCalculator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring for GraphQL 会自动使用容器中的 Instrumentation
+ * 在执行前拒绝过深或过于复杂的查询，避免一次请求展开出大量关联数据
+ */
+@Configuration
+public class GraphqlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(GraphqlProperties properties) {
+        return new MaxQueryDepthInstrumentation(properties.getMaxDepth());
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(GraphqlProperties properties) {
+        return new MaxQueryComplexityInstrumentation(
+                properties.getMaxComplexity(),
+                new ListAwareComplexityCalculator(properties.getListFactor())
+        );
+    }
+}
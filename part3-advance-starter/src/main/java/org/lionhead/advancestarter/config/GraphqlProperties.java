@@ -0,0 +1,24 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * GraphQL 查询限制
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.graphql")
+public class GraphqlProperties {
+
+    // 最大嵌套深度
+    private int maxDepth = 6;
+
+    // 最大复杂度，列表字段的复杂度按 listFactor 倍计算
+    private int maxComplexity = 2000;
+
+    // 估算列表字段平均返回的元素个数
+    private int listFactor = 10;
+
+    // 根列表查询 first 参数的上限
+    private int maxFirst = 200;
+}
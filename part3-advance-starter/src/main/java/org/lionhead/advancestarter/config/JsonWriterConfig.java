@@ -0,0 +1,39 @@
+package org.lionhead.advancestarter.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.json.ShapeJsonHttpMessageConverter;
+import org.lionhead.advancestarter.json.ShapeJsonWriters;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 在 Jackson 转换器之前注册 ShapeJsonHttpMessageConverter
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "lionhead.json", name = "shape-writers-enabled", havingValue = "true", matchIfMissing = true)
+public class JsonWriterConfig implements WebMvcConfigurer {
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Bean
+    public ShapeJsonWriters shapeJsonWriters() {
+        return new ShapeJsonWriters(objectMapper);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 缩进输出时数组本身的格式也不同，不做专门化
+        if (objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+            return;
+        }
+        converters.add(0, new ShapeJsonHttpMessageConverter(shapeJsonWriters()));
+    }
+}
@@ -0,0 +1,67 @@
+package org.lionhead.advancestarter.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.lionhead.advancestarter.routing.RoutingDataSource;
+import org.lionhead.advancestarter.routing.RoutingEndpoint;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离：spring.datasource 作为主库，lionhead.routing.replicas 作为从库
+ * 容器中的 DataSource 换成 RoutingDataSource 后，Spring Boot 不再自动创建数据源，
+ * jimmer-spring-boot-starter 和事务管理器都会使用这里的 @Primary 数据源
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "lionhead.routing", name = "enabled", havingValue = "true")
+public class RoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public RoutingDataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            RoutingProperties properties
+    ) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (RoutingProperties.Replica replica : properties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + (names.size() + 1);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+            names.add(name);
+        }
+        return new RoutingDataSource(
+                primaryDataSource,
+                replicas,
+                names,
+                properties.getBalance(),
+                properties.isFallbackToPrimary()
+        );
+    }
+
+    @Bean
+    public RoutingEndpoint routingEndpoint(RoutingDataSource dataSource) {
+        return new RoutingEndpoint(dataSource);
+    }
+}
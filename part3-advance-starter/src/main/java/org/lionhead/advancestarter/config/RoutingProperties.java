@@ -0,0 +1,45 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置，主库沿用 spring.datasource
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.routing")
+public class RoutingProperties {
+
+    private boolean enabled = false;
+
+    private Balance balance = Balance.ROUND_ROBIN;
+
+    // 所有从库都不可用时，读请求回退到主库
+    private boolean fallbackToPrimary = true;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Balance {
+        // 依次轮询
+        ROUND_ROBIN,
+        // 选择当前借出连接最少的从库
+        LEAST_BUSY
+    }
+
+    @Data
+    public static class Replica {
+
+        private String name;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
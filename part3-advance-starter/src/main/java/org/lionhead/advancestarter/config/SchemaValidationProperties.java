@@ -0,0 +1,28 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * 后台数据库结构校验
+ * 开启后应把 jimmer.database-validation-mode 设为 NONE，由这里在应用就绪后校验
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.schema-validation")
+public class SchemaValidationProperties {
+
+    private Mode mode = Mode.OFF;
+
+    // 上次完整校验通过时的指纹，指纹一致时跳过完整校验；
+    // 为空时按应用区分：${java.io.tmpdir}/${spring.application.name}-schema-fingerprint，不依赖启动时的工作目录
+    private Path fingerprintFile;
+
+    public enum Mode {
+        // 不做后台校验（使用 Jimmer 自身的启动时校验或完全不校验）
+        OFF,
+        // 应用就绪后在后台校验，失败时健康检查返回 DOWN
+        BACKGROUND
+    }
+}
@@ -0,0 +1,27 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 图书全文检索（内存倒排索引）配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.search")
+public class SearchProperties {
+
+    // 启动时会全量读取 book、author 建立索引，默认关闭
+    private boolean enabled = false;
+
+    // 建立索引时流式读取的 fetch size
+    private int fetchSize = 1000;
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 100;
+
+    // 书名命中与作者名命中的权重
+    private float nameWeight = 2.0f;
+
+    private float authorWeight = 1.0f;
+}
@@ -0,0 +1,24 @@
+package org.lionhead.advancestarter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 树形结构查询配置
+ */
+@Data
+@ConfigurationProperties(prefix = "lionhead.tree")
+public class TreeProperties {
+
+    // 默认查询深度
+    private int defaultDepth = 16;
+
+    // 允许的最大深度，防止环形数据或超深的树把递归查询拖垮
+    private int maxDepth = 64;
+
+    // 启用 tree_node_closure 闭包表（需先执行 db/tree-node-closure.sql），保存 TreeNode 时在同一事务中维护
+    private boolean closureEnabled = false;
+
+    // 校验、重建闭包表时递归的最大深度，防止环形数据导致无限递归
+    private int closureMaxDepth = 1024;
+}
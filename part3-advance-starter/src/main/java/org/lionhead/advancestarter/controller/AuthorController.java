@@ -2,12 +2,19 @@ package org.lionhead.advancestarter.controller;
 
 import jakarta.annotation.Resource;
 import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.config.AuthorBatchProperties;
 import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.service.AuthorBatchService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/author")
 public class AuthorController {
@@ -15,8 +22,24 @@ public class AuthorController {
     @Resource
     private JSqlClient sqlClient;
 
+    @Resource
+    private AuthorBatchService authorBatchService;
+
+    @Resource
+    private AuthorBatchProperties authorBatchProperties;
+
     @PostMapping
     public Author create(@RequestBody Author author){
         return sqlClient.insert(author).getModifiedEntity();
     }
+
+    // 请求体不用 @RequestBody 绑定成 List，而是直接拿到输入流边读边存
+    @PostMapping("/batch")
+    public List<AuthorBatchService.ChunkResult> createBatch(
+            InputStream body,
+            @RequestParam(required = false) Integer chunkSize
+    ) throws IOException {
+        int size = chunkSize != null ? chunkSize : authorBatchProperties.getChunkSize();
+        return authorBatchService.importAuthors(body, Math.min(size, authorBatchProperties.getMaxChunkSize()));
+    }
 }
@@ -0,0 +1,183 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JoinType;
+import org.lionhead.advancestarter.async.AsyncSqlClient;
+import org.lionhead.advancestarter.config.BookExportProperties;
+import org.lionhead.advancestarter.config.BookPageProperties;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.service.BookBulkSaveService;
+import org.lionhead.advancestarter.service.BookExportService;
+import org.lionhead.advancestarter.service.BookKeysetService;
+import org.lionhead.advancestarter.service.BookSortKey;
+import org.lionhead.advancestarter.service.DynamicQueryService;
+import org.lionhead.advancestarter.service.KeysetPage;
+import org.lionhead.advancestarter.service.ManyToManyLinkWriter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/book")
+public class BookController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final BookFetcher PAGE_FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name());
+
+    // 两个分支由 AsyncSqlClient 并行加载：authors 走中间表，bookStore 还要计算书店的 bookCount
+    private static final BookFetcher DETAIL_FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name().website().bookCount())
+            .authors(AuthorFetcher.$.firstName().lastName());
+
+    @Resource
+    private BookExportService bookExportService;
+
+    @Resource
+    private BookExportProperties bookExportProperties;
+
+    @Resource
+    private BookKeysetService bookKeysetService;
+
+    @Resource
+    private BookPageProperties bookPageProperties;
+
+    @Resource
+    private DynamicQueryService dynamicQueryService;
+
+    @Resource
+    private BookBulkSaveService bookBulkSaveService;
+
+    @Resource
+    private ManyToManyLinkWriter manyToManyLinkWriter;
+
+    @Resource
+    private AsyncSqlClient asyncSqlClient;
+
+    // 流式导出，边查边写，不会把全部图书放进内存
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Integer fetchSize) {
+        if (fetchSize != null && fetchSize <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fetchSize must be positive");
+        }
+        int size = Math.min(
+                fetchSize != null ? fetchSize : bookExportProperties.getFetchSize(),
+                bookExportProperties.getMaxFetchSize()
+        );
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(bookExportService.exportBody(size));
+    }
+
+    // 游标分页，返回对象抓取器的结果
+    @GetMapping("/page")
+    public KeysetPage<Book> page(
+            @RequestParam(defaultValue = "PRICE_ID") BookSortKey sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            return bookKeysetService.page(sort, cursor, resolveSize(size), PAGE_FETCHER);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // 游标分页，返回平铺的 tuple
+    @GetMapping("/page/flat")
+    public KeysetPage<BookRow> flatPage(
+            @RequestParam(defaultValue = "PRICE_ID") BookSortKey sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        BookTable table = BookTable.$;
+        try {
+            return bookKeysetService.page(
+                    sort,
+                    cursor,
+                    resolveSize(size),
+                    query -> query.select(
+                            table.id(),
+                            table.name(),
+                            table.edition(),
+                            table.price(),
+                            table.bookStore(JoinType.LEFT).name()
+                    ),
+                    tuple -> sort == BookSortKey.PRICE_ID
+                            ? List.of(tuple.get_4(), tuple.get_1())
+                            : List.of(tuple.get_2(), tuple.get_3())
+            ).map(tuple -> new BookRow(tuple.get_1(), tuple.get_2(), tuple.get_3(), tuple.get_4(), tuple.get_5()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // storeId 为空时查询全部图书
+    @GetMapping("/by-store")
+    public List<Book> byStore(@RequestParam(required = false) Integer storeId) {
+        return dynamicQueryService.findBooksByStore(storeId);
+    }
+
+    // 按 (name, edition) 批量 UPSERT 扁平的 Book，走 COPY + ON CONFLICT
+    // 请求体不绑定成 List，边解析边写入 COPY
+    @PostMapping("/bulk")
+    public BookBulkSaveService.BulkSaveResult bulkUpsert(InputStream body) throws IOException {
+        try {
+            return bookBulkSaveService.bulkUpsert(body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // 异步返回，不占用请求线程等待数据库
+    @GetMapping("/detail")
+    public CompletableFuture<List<Book>> detail(@RequestParam List<Integer> ids) {
+        return asyncSqlClient.findByIds(DETAIL_FETCHER, ids);
+    }
+
+    // 批量维护图书作者，请求体为 bookId -> authorIds，merge=true 时只补充不删除；只能修改当前租户的图书
+    @PutMapping("/authors")
+    public ManyToManyLinkWriter.LinkResult updateAuthors(
+            @RequestBody Map<Integer, List<Integer>> links,
+            @RequestParam(defaultValue = "false") boolean merge
+    ) {
+        try {
+            return merge
+                    ? manyToManyLinkWriter.merge(BookProps.AUTHORS, links)
+                    : manyToManyLinkWriter.replace(BookProps.AUTHORS, links);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private int resolveSize(Integer size) {
+        if (size == null) {
+            return bookPageProperties.getDefaultSize();
+        }
+        return Math.max(1, Math.min(size, bookPageProperties.getMaxSize()));
+    }
+
+    public record BookRow(int id, String name, int edition, double price, String storeName) {
+    }
+}
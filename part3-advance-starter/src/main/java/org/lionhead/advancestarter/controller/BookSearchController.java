@@ -0,0 +1,48 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.config.SearchProperties;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.search.BookSearchIndex;
+import org.lionhead.advancestarter.search.BookSearchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/book/search")
+@ConditionalOnProperty(prefix = "lionhead.search", name = "enabled", havingValue = "true")
+public class BookSearchController {
+
+    @Resource
+    private BookSearchService bookSearchService;
+
+    @Resource
+    private SearchProperties searchProperties;
+
+    // 按书名片段或作者名搜索，多个词之间为 AND，结果按相关度排序
+    @GetMapping
+    public List<Book> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must not be blank");
+        }
+        if (!bookSearchService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "book search index is building");
+        }
+        int resolvedLimit = limit != null
+                ? Math.min(Math.max(limit, 1), searchProperties.getMaxLimit())
+                : searchProperties.getDefaultLimit();
+        return bookSearchService.search(q, resolvedLimit);
+    }
+
+    @GetMapping("/stats")
+    public BookSearchIndex.Stats stats() {
+        return bookSearchService.stats();
+    }
+}
@@ -0,0 +1,49 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookStoreTable;
+import org.lionhead.advancestarter.service.DynamicQueryService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/book-store")
+public class BookStoreController {
+
+    // 书店以及计算属性，不加载 books
+    private static final BookStoreFetcher SUMMARY_FETCHER = BookStoreFetcher.$
+            .name()
+            .bookCount()
+            .avgPrice();
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private DynamicQueryService dynamicQueryService;
+
+    @GetMapping("/search")
+    public List<BookStore> search(
+            @RequestParam(required = false) String website,
+            @RequestParam(required = false) String name
+    ) {
+        return dynamicQueryService.searchBookStores(website, name);
+    }
+
+    // 每家书店的图书数量和平均价格
+    @GetMapping("/summary")
+    public List<BookStore> summary() {
+        BookStoreTable table = BookStoreTable.$;
+        return sqlClient.createQuery(table)
+                .orderBy(table.id())
+                .select(table.fetch(SUMMARY_FETCHER))
+                .execute();
+    }
+}
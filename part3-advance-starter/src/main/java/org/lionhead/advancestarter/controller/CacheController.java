@@ -0,0 +1,31 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.cache.CacheStatistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/cache")
+@ConditionalOnProperty(prefix = "lionhead.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheController {
+
+    @Resource
+    private CacheStatistics cacheStatistics;
+
+    // 各缓存的命中、未命中、失效次数
+    @GetMapping("/stats")
+    public Map<String, CacheStatistics.Snapshot> stats() {
+        return cacheStatistics.snapshot();
+    }
+
+    @DeleteMapping("/stats")
+    public void resetStats() {
+        cacheStatistics.reset();
+    }
+}
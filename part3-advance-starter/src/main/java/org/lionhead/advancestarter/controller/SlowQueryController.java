@@ -0,0 +1,32 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.executor.SlowQuery;
+import org.lionhead.advancestarter.executor.SlowQueryRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/slow-queries")
+@ConditionalOnProperty(prefix = "lionhead.executor.slow-query", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryController {
+
+    @Resource
+    private SlowQueryRecorder slowQueryRecorder;
+
+    // 最近的慢查询，按时间倒序
+    @GetMapping
+    public List<SlowQuery> recent() {
+        return slowQueryRecorder.recent();
+    }
+
+    @DeleteMapping
+    public void clear() {
+        slowQueryRecorder.clear();
+    }
+}
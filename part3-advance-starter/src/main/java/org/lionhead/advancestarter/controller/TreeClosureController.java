@@ -0,0 +1,69 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.config.TreeProperties;
+import org.lionhead.advancestarter.entity.TreeNode;
+import org.lionhead.advancestarter.service.TreeClosureService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/tree")
+@ConditionalOnProperty(prefix = "lionhead.tree", name = "closure-enabled", havingValue = "true")
+public class TreeClosureController {
+
+    @Resource
+    private TreeClosureService treeClosureService;
+
+    @Resource
+    private TreeProperties treeProperties;
+
+    // 子树中的节点平铺返回，按层级排序
+    @GetMapping("/{id}/descendants")
+    public List<TreeNode> descendants(@PathVariable int id, @RequestParam(required = false) Integer depth) {
+        int maxDepth = depth != null ? depth : treeProperties.getDefaultDepth();
+        if (maxDepth < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth must not be negative");
+        }
+        return treeClosureService.findDescendants(id, maxDepth);
+    }
+
+    @GetMapping("/{id}/ancestor-ids")
+    public List<Integer> ancestorIds(@PathVariable int id) {
+        return treeClosureService.findAncestorIds(id);
+    }
+
+    @GetMapping("/{id}/depth")
+    public int depth(@PathVariable int id) {
+        Integer depth = treeClosureService.depth(id);
+        if (depth == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "tree node " + id + " does not exist");
+        }
+        return depth;
+    }
+
+    // id 是否在 ancestorId 的子树中
+    @GetMapping("/{id}/under/{ancestorId}")
+    public boolean under(@PathVariable int id, @PathVariable int ancestorId) {
+        return treeClosureService.isDescendant(id, ancestorId);
+    }
+
+    @GetMapping("/closure/check")
+    public TreeClosureService.CheckResult check() {
+        return treeClosureService.check();
+    }
+
+    @PostMapping("/closure/rebuild")
+    public int rebuild() {
+        return treeClosureService.rebuild();
+    }
+}
@@ -0,0 +1,68 @@
+package org.lionhead.advancestarter.controller;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.config.TreeProperties;
+import org.lionhead.advancestarter.entity.TreeNode;
+import org.lionhead.advancestarter.service.TreeService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/tree")
+public class TreeNodeController {
+
+    @Resource
+    private TreeService treeService;
+
+    @Resource
+    private TreeProperties treeProperties;
+
+    // mode=cte: 递归 CTE，一条 SQL；mode=fetcher: 递归抓取器，每层一条 SQL
+    @GetMapping("/{id}/subtree")
+    public TreeNode subtree(
+            @PathVariable int id,
+            @RequestParam(required = false) Integer depth,
+            @RequestParam(defaultValue = "cte") String mode
+    ) {
+        int maxDepth = resolveDepth(depth);
+        TreeNode node = "fetcher".equals(mode)
+                ? treeService.findSubtreeByFetcher(id, maxDepth)
+                : treeService.findSubtree(id, maxDepth);
+        return requireFound(node, id);
+    }
+
+    @GetMapping("/{id}/ancestors")
+    public TreeNode ancestors(
+            @PathVariable int id,
+            @RequestParam(required = false) Integer depth,
+            @RequestParam(defaultValue = "cte") String mode
+    ) {
+        int maxDepth = resolveDepth(depth);
+        TreeNode node = "fetcher".equals(mode)
+                ? treeService.findAncestorsByFetcher(id, maxDepth)
+                : treeService.findAncestors(id, maxDepth);
+        return requireFound(node, id);
+    }
+
+    private int resolveDepth(Integer depth) {
+        if (depth == null) {
+            return treeProperties.getDefaultDepth();
+        }
+        if (depth < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth must not be negative");
+        }
+        return Math.min(depth, treeProperties.getMaxDepth());
+    }
+
+    private static TreeNode requireFound(TreeNode node, int id) {
+        if (node == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "tree node " + id + " does not exist");
+        }
+        return node;
+    }
+}
@@ -2,11 +2,10 @@ package org.lionhead.advancestarter.entity;
 
 import org.babyfish.jimmer.sql.*;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-public interface Author {
+public interface Author extends BaseEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,10 +21,6 @@ public interface Author {
 
 //    String tenant();
 
-    LocalDateTime createdTime();
-
-    LocalDateTime modifiedTime();
-
     @ManyToMany(mappedBy = "authors")
     List<Book> books();
 }
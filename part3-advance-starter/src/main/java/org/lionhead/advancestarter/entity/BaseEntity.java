@@ -0,0 +1,16 @@
+package org.lionhead.advancestarter.entity;
+
+import org.babyfish.jimmer.sql.MappedSuperclass;
+
+import java.time.LocalDateTime;
+
+/**
+ * 所有实体共有的审计字段，由 BaseEntityDraftInterceptor 在保存时自动填充
+ */
+@MappedSuperclass
+public interface BaseEntity {
+
+    LocalDateTime createdTime();
+
+    LocalDateTime modifiedTime();
+}
@@ -3,11 +3,10 @@ package org.lionhead.advancestarter.entity;
 import jakarta.annotation.Nullable;
 import org.babyfish.jimmer.sql.*;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-public interface Book {
+public interface Book extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     int id();
@@ -24,10 +23,6 @@ public interface Book {
 
     String tenant();
 
-    LocalDateTime createdTime();
-
-    LocalDateTime modifiedTime();
-
     @Nullable
     @ManyToOne
     @JoinColumn(name = "store_id", foreignKeyType = ForeignKeyType.FAKE)
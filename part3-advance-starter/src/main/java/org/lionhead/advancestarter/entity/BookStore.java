@@ -2,12 +2,13 @@
 
     import jakarta.annotation.Nullable;
     import org.babyfish.jimmer.sql.*;
+    import org.lionhead.advancestarter.resolver.BookStoreAvgPriceResolver;
+    import org.lionhead.advancestarter.resolver.BookStoreBookCountResolver;
 
-    import java.time.LocalDateTime;
     import java.util.List;
 
     @Entity
-    public interface BookStore {
+    public interface BookStore extends BaseEntity {
         @Id
         @GeneratedValue(strategy = GenerationType.IDENTITY)
         int id();
@@ -18,11 +19,14 @@
         @Nullable
         String website();
 
-        LocalDateTime createdTime();
-
-        LocalDateTime modifiedTime();
-
         @OneToMany(mappedBy = "bookStore")
         List<Book> books();
 
+        // 计算属性：一次 GROUP BY 为抓取到的所有书店计算，通过 BookStoreFetcher 按需选择
+        @Transient(BookStoreBookCountResolver.class)
+        long bookCount();
+
+        @Transient(BookStoreAvgPriceResolver.class)
+        double avgPrice();
+
     }
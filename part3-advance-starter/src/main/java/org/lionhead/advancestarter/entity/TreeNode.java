@@ -3,11 +3,10 @@ package org.lionhead.advancestarter.entity;
 import jakarta.annotation.Nullable;
 import org.babyfish.jimmer.sql.*;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-public interface TreeNode {
+public interface TreeNode extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "node_id")
@@ -18,10 +17,6 @@ public interface TreeNode {
     // 已经有下方的 parent 对应数据库表中的 parent_id 字段
     // Integer parentId();
 
-    LocalDateTime createdTime();
-
-    LocalDateTime modifiedTime();
-
     @ManyToOne
     @Nullable
     TreeNode parent();
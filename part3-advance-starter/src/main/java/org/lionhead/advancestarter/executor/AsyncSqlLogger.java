@@ -0,0 +1,219 @@
+package org.lionhead.advancestarter.executor;
+
+import org.babyfish.jimmer.sql.runtime.DbLiteral;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * 异步 SQL 日志
+ * 业务线程只做采样判断并把原始 SQL 和参数放入无锁队列；
+ * 格式化、内联参数、输出日志全部在后台线程完成。队列满时丢弃并计数，不阻塞业务线程
+ */
+public class AsyncSqlLogger implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger("org.lionhead.advancestarter.SQL");
+
+    private static final Pattern CLAUSE = Pattern.compile(
+            "\\s+(from|where|inner join|left join|right join|full join|group by|having|order by|limit|offset|values|set|on conflict|returning)\\s+",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private final int capacity;
+
+    private final double defaultRate;
+
+    private final Map<String, Double> rules;
+
+    private final boolean pretty;
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    // 每条 SQL 的采样率只计算一次
+    private final Map<String, Double> rateCache = new ConcurrentHashMap<>();
+
+    private final LongAdder logged = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param rules SQL 片段（忽略大小写） -> 采样率，按插入顺序匹配第一个包含该片段的规则
+     */
+    public AsyncSqlLogger(int capacity, double defaultRate, Map<String, Double> rules, boolean pretty) {
+        this.capacity = capacity;
+        this.defaultRate = defaultRate;
+        this.rules = rules;
+        this.pretty = pretty;
+        this.writer = Thread.ofPlatform().name("async-sql-logger").daemon().start(this::drainLoop);
+    }
+
+    public boolean sampled(String sql) {
+        double rate = rateCache.size() < 10_000
+                ? rateCache.computeIfAbsent(sql, this::rateOf)
+                : rateOf(sql);
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * 调用前应先调用 sampled，variables 需要是调用方不会再修改的副本
+     */
+    public void offer(ExecutionPurpose purpose, String sql, List<Object> variables, long elapsedNanos, long rows) {
+        offer(purpose, sql, variables, elapsedNanos, rows, null);
+    }
+
+    /**
+     * error 不为 null 表示语句执行失败，以 WARN 级别输出并附带异常信息
+     */
+    public void offer(
+            ExecutionPurpose purpose,
+            String sql,
+            List<Object> variables,
+            long elapsedNanos,
+            long rows,
+            Throwable error
+    ) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        // 只保留异常信息，不让后台队列持有异常对象及其引用的连接、语句
+        String errorMessage = error != null ? error.getClass().getName() + ": " + error.getMessage() : null;
+        queue.offer(new Entry(purpose, sql, variables, elapsedNanos, rows, errorMessage));
+        LockSupport.unpark(writer);
+    }
+
+    public Stats stats() {
+        return new Stats(logged.sum(), dropped.sum(), size.get());
+    }
+
+    private double rateOf(String sql) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Double> rule : rules.entrySet()) {
+            if (lower.contains(rule.getKey().toLowerCase(Locale.ROOT))) {
+                return rule.getValue();
+            }
+        }
+        return defaultRate;
+    }
+
+    private void drainLoop() {
+        while (!closed || !queue.isEmpty()) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            size.decrementAndGet();
+            try {
+                write(entry);
+                logged.increment();
+            } catch (RuntimeException e) {
+                // 日志线程不能因为某条语句格式化失败而退出
+                logger.debug("Failed to format sql: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        if (entry.error != null ? !logger.isWarnEnabled() : !logger.isInfoEnabled()) {
+            return;
+        }
+        String sql = inline(entry.sql, entry.variables);
+        if (pretty) {
+            sql = CLAUSE.matcher(sql).replaceAll(m -> "\n    " + m.group(1) + " ");
+        }
+        if (entry.error != null) {
+            logger.warn(
+                    "{} failed ({} ms): {}\n{}",
+                    entry.purpose,
+                    String.format(Locale.ROOT, "%.3f", entry.elapsedNanos / 1_000_000.0),
+                    entry.error,
+                    sql
+            );
+            return;
+        }
+        logger.info(
+                "{} ({} ms, {} rows):\n{}",
+                entry.purpose,
+                String.format(Locale.ROOT, "%.3f", entry.elapsedNanos / 1_000_000.0),
+                entry.rows,
+                sql
+        );
+    }
+
+    // 把参数内联到 ? 位置，字符串字面量中的 ? 不处理
+    private static String inline(String sql, List<Object> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return sql;
+        }
+        StringBuilder builder = new StringBuilder(sql.length() + variables.size() * 8);
+        int index = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted && index < variables.size()) {
+                builder.append(literal(variables.get(index++)));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value == null || value instanceof DbLiteral.DbNull) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Entry(
+            ExecutionPurpose purpose,
+            String sql,
+            List<Object> variables,
+            long elapsedNanos,
+            long rows,
+            String error
+    ) {
+    }
+
+    public record Stats(long logged, long dropped, int queued) {
+    }
+}
@@ -0,0 +1,33 @@
+package org.lionhead.advancestarter.executor;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * /actuator/jimmersql：按总耗时倒序列出最热的语句
+ */
+@Endpoint(id = "jimmersql")
+public class JimmerSqlEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final StatementMetrics metrics;
+
+    public JimmerSqlEndpoint(StatementMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<StatementMetrics.Snapshot> statements(@Nullable Integer limit) {
+        return metrics.snapshot(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        metrics.reset();
+    }
+}
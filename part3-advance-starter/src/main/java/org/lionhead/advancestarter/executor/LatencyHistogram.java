@@ -0,0 +1,66 @@
+package org.lionhead.advancestarter.executor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 以微秒为单位按 2 的幂分桶：第 i 个桶记录 [2^(i-1), 2^i) 微秒，最后一个桶兜底，
+ * 记录一次只需要一次数组原子自增，分位数按桶上界估算，误差不超过一倍
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 28;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int index = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(index);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double totalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    public double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public double percentileMillis(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // 桶上界（微秒）转毫秒，但不超过实际最大值
+                return Math.min((1L << i) / 1000.0, maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+}
@@ -0,0 +1,148 @@
+package org.lionhead.advancestarter.executor;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.sql.runtime.ExceptionTranslator;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.ExecutorContext;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 记录语句指标的 Executor 装饰器
+ * 不依赖 Spring，既可以注册为 Spring Bean 交给 starter，也可以直接用于 JSqlClient.newBuilder()：
+ * <pre>
+ * JSqlClient.newBuilder()
+ *         .setExecutor(new MetricsExecutor(DefaultExecutor.INSTANCE, new StatementMetrics(1000)))
+ * </pre>
+ */
+public class MetricsExecutor implements Executor {
+
+    private final Executor delegate;
+
+    private final StatementMetrics metrics;
+
+    public MetricsExecutor(Executor delegate, StatementMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <R> R execute(@NotNull Args<R> args) {
+        StatementMetrics.Stat stat = metrics.stat(args.purpose, args.sql);
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = delegate.execute(args);
+        } catch (RuntimeException | Error e) {
+            stat.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        stat.recordExecution(System.nanoTime() - start, rowCount(result));
+        return result;
+    }
+
+    @Override
+    public BatchContext executeBatch(
+            @NotNull Connection con,
+            @NotNull String sql,
+            @Nullable ImmutableProp generatedIdProp,
+            @NotNull ExecutionPurpose purpose,
+            @NotNull JSqlClientImplementor sqlClient
+    ) {
+        return new MetricsBatchContext(
+                delegate.executeBatch(con, sql, generatedIdProp, purpose, sqlClient),
+                metrics.stat(purpose, sql)
+        );
+    }
+
+    // 查询返回 List，修改语句返回影响行数
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        return 0;
+    }
+
+    private static class MetricsBatchContext implements BatchContext {
+
+        private final BatchContext raw;
+
+        private final StatementMetrics.Stat stat;
+
+        private int size;
+
+        MetricsBatchContext(BatchContext raw, StatementMetrics.Stat stat) {
+            this.raw = raw;
+            this.stat = stat;
+        }
+
+        @Override
+        public JSqlClientImplementor sqlClient() {
+            return raw.sqlClient();
+        }
+
+        @Override
+        public String sql() {
+            return raw.sql();
+        }
+
+        @Override
+        public ExecutionPurpose purpose() {
+            return raw.purpose();
+        }
+
+        @Override
+        public ExecutorContext ctx() {
+            return raw.ctx();
+        }
+
+        @Override
+        public void add(List<Object> variables) {
+            size++;
+            raw.add(variables);
+        }
+
+        @Override
+        public int[] execute(BiFunction<SQLException, ExceptionTranslator.Args, Exception> exceptionTranslator) {
+            long start = System.nanoTime();
+            int[] rowCounts;
+            try {
+                rowCounts = raw.execute(exceptionTranslator);
+            } catch (RuntimeException | Error e) {
+                stat.recordError(System.nanoTime() - start);
+                throw e;
+            }
+            long affected = 0;
+            for (int rowCount : rowCounts) {
+                // Statement.SUCCESS_NO_INFO 为负数，忽略
+                if (rowCount > 0) {
+                    affected += rowCount;
+                }
+            }
+            stat.recordBatch(System.nanoTime() - start, size, affected);
+            size = 0;
+            return rowCounts;
+        }
+
+        @Override
+        public Object[] generatedIds() {
+            return raw.generatedIds();
+        }
+
+        @Override
+        public void close() {
+            raw.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.lionhead.advancestarter.executor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 一次慢查询记录
+ *
+ * @param plan 执行计划，异步采集，采集完成前为 null；采集失败时为失败原因
+ */
+public record SlowQuery(
+        long sequence,
+        LocalDateTime time,
+        String purpose,
+        String sql,
+        List<String> variables,
+        double elapsedMs,
+        String plan
+) {
+
+    public SlowQuery withPlan(String plan) {
+        return new SlowQuery(sequence, time, purpose, sql, variables, elapsedMs, plan);
+    }
+}
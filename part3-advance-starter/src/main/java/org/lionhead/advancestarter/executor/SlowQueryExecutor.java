@@ -0,0 +1,64 @@
+package org.lionhead.advancestarter.executor;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 捕获慢查询的 Executor 装饰器
+ * 每条语句只多两次 System.nanoTime()；只有超过阈值且被采样命中的语句才会被记录，
+ * 采样率用于在慢查询集中爆发时限制记录和采集执行计划的开销
+ */
+public class SlowQueryExecutor implements Executor {
+
+    private final Executor delegate;
+
+    private final SlowQueryRecorder recorder;
+
+    private final long thresholdNanos;
+
+    private final double sampleRate;
+
+    public SlowQueryExecutor(Executor delegate, SlowQueryRecorder recorder, Duration threshold, double sampleRate) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public <R> R execute(@NotNull Args<R> args) {
+        long start = System.nanoTime();
+        try {
+            return delegate.execute(args);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos && sampled()) {
+                recorder.record(args.purpose, args.sql, args.variables, elapsed);
+            }
+        }
+    }
+
+    // 批量语句无法用一组参数还原，只依赖 MetricsExecutor 的统计
+    @Override
+    public BatchContext executeBatch(
+            @NotNull Connection con,
+            @NotNull String sql,
+            @Nullable ImmutableProp generatedIdProp,
+            @NotNull ExecutionPurpose purpose,
+            @NotNull JSqlClientImplementor sqlClient
+    ) {
+        return delegate.executeBatch(con, sql, generatedIdProp, purpose, sqlClient);
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,180 @@
+package org.lionhead.advancestarter.executor;
+
+import org.babyfish.jimmer.sql.runtime.DbLiteral;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢查询记录器
+ * 1. 最近的慢查询保存在定长环形缓冲区中，写入无锁，旧记录被自动覆盖
+ * 2. 执行计划在独立的后台线程中、用独立的连接采集，不占用业务线程和业务事务的连接
+ * 3. 同一条 SQL 在 explainInterval 内只采集一次执行计划，采集队列满了直接丢弃
+ */
+public class SlowQueryRecorder implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryRecorder.class);
+
+    private static final int MAX_VARIABLE_LENGTH = 200;
+
+    private final DataSource dataSource;
+
+    private final boolean explainAnalyze;
+
+    private final long explainIntervalNanos;
+
+    private final AtomicReferenceArray<SlowQuery> ring;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Long> lastExplainNanos = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedExplains = new LongAdder();
+
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryRecorder(DataSource dataSource, int capacity, boolean explainAnalyze, Duration explainInterval) {
+        this.dataSource = dataSource;
+        this.explainAnalyze = explainAnalyze;
+        this.explainIntervalNanos = explainInterval.toNanos();
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.explainExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64),
+                Thread.ofPlatform().name("slow-query-explain").daemon().factory(),
+                (task, executor) -> droppedExplains.increment()
+        );
+    }
+
+    public void record(ExecutionPurpose purpose, String sql, List<Object> variables, long elapsedNanos) {
+        long seq = sequence.incrementAndGet();
+        int slot = (int) (seq % ring.length());
+        SlowQuery slowQuery = new SlowQuery(
+                seq,
+                LocalDateTime.now(),
+                String.valueOf(purpose),
+                sql,
+                describe(variables),
+                elapsedNanos / 1_000_000.0,
+                null
+        );
+        ring.set(slot, slowQuery);
+        logger.warn("Slow query ({} ms): {}", slowQuery.elapsedMs(), sql);
+        if (shouldExplain(sql)) {
+            // 参数列表可能被调用方复用，拷贝一份再交给后台线程
+            List<Object> copiedVariables = variables != null ? new ArrayList<>(variables) : List.of();
+            explainExecutor.execute(() -> explain(slot, slowQuery, copiedVariables));
+        }
+    }
+
+    public List<SlowQuery> recent() {
+        List<SlowQuery> list = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            SlowQuery slowQuery = ring.get(i);
+            if (slowQuery != null) {
+                list.add(slowQuery);
+            }
+        }
+        list.sort(Comparator.comparingLong(SlowQuery::sequence).reversed());
+        return list;
+    }
+
+    public long droppedExplains() {
+        return droppedExplains.sum();
+    }
+
+    public void clear() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+        lastExplainNanos.clear();
+    }
+
+    private boolean shouldExplain(String sql) {
+        long now = System.nanoTime();
+        if (lastExplainNanos.size() > 10_000) {
+            lastExplainNanos.clear();
+        }
+        Long last = lastExplainNanos.get(sql);
+        if (last != null && now - last < explainIntervalNanos) {
+            return false;
+        }
+        lastExplainNanos.put(sql, now);
+        return true;
+    }
+
+    private void explain(int slot, SlowQuery slowQuery, List<Object> variables) {
+        String plan;
+        try {
+            plan = queryPlan(slowQuery.sql(), variables);
+        } catch (SQLException | RuntimeException e) {
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        // 环形缓冲区的这个位置可能已经被更新的慢查询覆盖，此时放弃
+        ring.compareAndSet(slot, slowQuery, slowQuery.withPlan(plan));
+    }
+
+    private String queryPlan(String sql, List<Object> variables) throws SQLException {
+        // ANALYZE 会真正执行语句，只对查询语句使用，修改语句只看预估计划
+        boolean analyze = explainAnalyze && sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+        String explainSql = (analyze ? "explain (analyze, buffers) " : "explain ") + sql;
+        try (Connection con = dataSource.getConnection()) {
+            con.setReadOnly(analyze);
+            try (PreparedStatement stmt = con.prepareStatement(explainSql)) {
+                for (int i = 0; i < variables.size(); i++) {
+                    Object value = variables.get(i);
+                    stmt.setObject(i + 1, value instanceof DbLiteral.DbNull ? null : value);
+                }
+                StringBuilder builder = new StringBuilder();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        builder.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return builder.toString();
+            } finally {
+                con.setReadOnly(false);
+            }
+        }
+    }
+
+    private static List<String> describe(List<Object> variables) {
+        if (variables == null) {
+            return List.of();
+        }
+        List<String> list = new ArrayList<>(variables.size());
+        for (Object variable : variables) {
+            String text = variable instanceof DbLiteral.DbNull ? "null" : Objects.toString(variable);
+            list.add(text.length() > MAX_VARIABLE_LENGTH ? text.substring(0, MAX_VARIABLE_LENGTH) + "..." : text);
+        }
+        return list;
+    }
+
+    @Override
+    public void close() {
+        explainExecutor.shutdownNow();
+    }
+}
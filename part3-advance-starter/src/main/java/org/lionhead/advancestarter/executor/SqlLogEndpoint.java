@@ -0,0 +1,22 @@
+package org.lionhead.advancestarter.executor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * /actuator/sqllog：异步 SQL 日志的输出数、丢弃数和队列长度
+ */
+@Endpoint(id = "sqllog")
+public class SqlLogEndpoint {
+
+    private final AsyncSqlLogger sqlLogger;
+
+    public SqlLogEndpoint(AsyncSqlLogger sqlLogger) {
+        this.sqlLogger = sqlLogger;
+    }
+
+    @ReadOperation
+    public AsyncSqlLogger.Stats stats() {
+        return sqlLogger.stats();
+    }
+}
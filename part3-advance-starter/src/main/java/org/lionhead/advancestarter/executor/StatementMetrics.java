@@ -0,0 +1,163 @@
+package org.lionhead.advancestarter.executor;
+
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 按 ExecutionPurpose + 归一化 SQL 分组的语句指标
+ * Jimmer 生成的 SQL 已经使用 ? 占位，只有 in (?, ?, ...) 的长度会随参数变化，
+ * 归一化时把它折叠成 in (?...)，避免同一条语句因为参数个数不同被拆成很多组
+ */
+public class StatementMetrics {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final Pattern TUPLE_IN_LIST = Pattern.compile("\\(\\s*\\(\\?[^()]*\\)(\\s*,\\s*\\(\\?[^()]*\\))+\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String OTHER_STATEMENTS = "<other statements>";
+
+    private final int maxStatements;
+
+    private final Map<String, String> normalizedCache = new ConcurrentHashMap<>();
+
+    private final Map<Key, Stat> stats = new ConcurrentHashMap<>();
+
+    public StatementMetrics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public Stat stat(ExecutionPurpose purpose, String sql) {
+        Key key = new Key(purposeName(purpose), normalize(sql));
+        Stat stat = stats.get(key);
+        if (stat != null) {
+            return stat;
+        }
+        // 语句种类超过上限时全部归入一组，防止异常的动态 SQL 把内存撑爆
+        if (stats.size() >= maxStatements) {
+            key = new Key(key.purpose, OTHER_STATEMENTS);
+        }
+        return stats.computeIfAbsent(key, k -> new Stat());
+    }
+
+    public List<Snapshot> snapshot(int limit) {
+        return stats.entrySet()
+                .stream()
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .sorted(Comparator.comparingDouble(Snapshot::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private String normalize(String sql) {
+        String normalized = normalizedCache.get(sql);
+        if (normalized == null) {
+            normalized = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+            normalized = TUPLE_IN_LIST.matcher(normalized).replaceAll("((?...))");
+            normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+            if (normalizedCache.size() < maxStatements * 4) {
+                normalizedCache.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    private static String purposeName(ExecutionPurpose purpose) {
+        if (purpose == null) {
+            return "UNKNOWN";
+        }
+        if (purpose instanceof Enum<?> e) {
+            return e.name();
+        }
+        return purpose.toString();
+    }
+
+    private record Key(String purpose, String sql) {
+    }
+
+    public static class Stat {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder batches = new LongAdder();
+
+        private final LongAdder batchItems = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        public void recordExecution(long nanos, long rowCount) {
+            latency.record(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+
+        public void recordBatch(long nanos, int batchSize, long affectedRows) {
+            latency.record(nanos);
+            batches.increment();
+            batchItems.add(batchSize);
+            if (affectedRows > 0) {
+                rows.add(affectedRows);
+            }
+        }
+
+        public void recordError(long nanos) {
+            latency.record(nanos);
+            errors.increment();
+        }
+
+        Snapshot snapshot(Key key) {
+            long count = latency.count();
+            long batchCount = batches.sum();
+            return new Snapshot(
+                    key.purpose,
+                    key.sql,
+                    count,
+                    latency.totalMillis(),
+                    count == 0 ? 0 : latency.totalMillis() / count,
+                    latency.percentileMillis(0.5),
+                    latency.percentileMillis(0.9),
+                    latency.percentileMillis(0.99),
+                    latency.maxMillis(),
+                    rows.sum(),
+                    batchCount,
+                    batchCount == 0 ? 0 : (double) batchItems.sum() / batchCount,
+                    errors.sum()
+            );
+        }
+    }
+
+    /**
+     * @param rows         查询返回的行数，或修改语句影响的行数
+     * @param avgBatchSize 批量执行时平均每批的参数组数
+     */
+    public record Snapshot(
+            String purpose,
+            String sql,
+            long count,
+            double totalMs,
+            double meanMs,
+            double p50Ms,
+            double p90Ms,
+            double p99Ms,
+            double maxMs,
+            long rows,
+            long batches,
+            double avgBatchSize,
+            long errors
+    ) {
+    }
+}
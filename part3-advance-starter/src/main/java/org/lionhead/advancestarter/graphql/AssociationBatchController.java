@@ -0,0 +1,96 @@
+package org.lionhead.advancestarter.graphql;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.ImmutableObjects;
+import org.babyfish.jimmer.meta.TypedProp;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorProps;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 关联字段和计算属性的批量加载器
+ * Spring for GraphQL 为每个请求创建 DataLoader，同一个字段在整个响应中的全部父对象合并为一次调用；
+ * 父对象上已由根查询的 fetcher 加载的属性直接返回，只有未加载的才交给 Jimmer Loaders 批量查询
+ */
+@Controller
+public class AssociationBatchController {
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @BatchMapping(typeName = "Book")
+    public Map<Book, BookStore> bookStore(List<Book> books) {
+        return load(books, BookProps.BOOK_STORE, unloaded ->
+                sqlClient.getLoaders().reference(BookProps.BOOK_STORE).batchLoad(unloaded)
+        );
+    }
+
+    @BatchMapping(typeName = "Book")
+    public Map<Book, List<Author>> authors(List<Book> books) {
+        return load(books, BookProps.AUTHORS, unloaded ->
+                sqlClient.getLoaders().list(BookProps.AUTHORS).batchLoad(unloaded)
+        );
+    }
+
+    @BatchMapping(typeName = "BookStore", field = "books")
+    public Map<BookStore, List<Book>> bookStoreBooks(List<BookStore> bookStores) {
+        return load(bookStores, BookStoreProps.BOOKS, unloaded ->
+                sqlClient.getLoaders().list(BookStoreProps.BOOKS).batchLoad(unloaded)
+        );
+    }
+
+    @BatchMapping(typeName = "BookStore")
+    public Map<BookStore, Long> bookCount(List<BookStore> bookStores) {
+        return load(bookStores, BookStoreProps.BOOK_COUNT, unloaded ->
+                sqlClient.getLoaders().value(BookStoreProps.BOOK_COUNT).batchLoad(unloaded)
+        );
+    }
+
+    @BatchMapping(typeName = "BookStore")
+    public Map<BookStore, Double> avgPrice(List<BookStore> bookStores) {
+        return load(bookStores, BookStoreProps.AVG_PRICE, unloaded ->
+                sqlClient.getLoaders().value(BookStoreProps.AVG_PRICE).batchLoad(unloaded)
+        );
+    }
+
+    @BatchMapping(typeName = "Author", field = "books")
+    public Map<Author, List<Book>> authorBooks(List<Author> authors) {
+        return load(authors, AuthorProps.BOOKS, unloaded ->
+                sqlClient.getLoaders().list(AuthorProps.BOOKS).batchLoad(unloaded)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S, T> Map<S, T> load(
+            List<S> sources,
+            TypedProp<S, ?> prop,
+            Function<Collection<S>, Map<S, T>> loader
+    ) {
+        Map<S, T> result = new LinkedHashMap<>((sources.size() * 4 + 2) / 3);
+        List<S> unloaded = new ArrayList<>();
+        for (S source : sources) {
+            if (ImmutableObjects.isLoaded(source, prop)) {
+                result.put(source, (T) ImmutableObjects.get(source, prop));
+            } else {
+                unloaded.add(source);
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            result.putAll(loader.apply(unloaded));
+        }
+        return result;
+    }
+}
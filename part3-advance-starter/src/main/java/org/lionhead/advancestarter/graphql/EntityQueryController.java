@@ -0,0 +1,93 @@
+package org.lionhead.advancestarter.graphql;
+
+import graphql.schema.DataFetchingEnvironment;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.spring.graphql.DataFetchingEnvironments;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.fetcher.Fetcher;
+import org.lionhead.advancestarter.config.GraphqlProperties;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorTable;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreTable;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+/**
+ * GraphQL 根查询
+ * 整个选择集（包括嵌套的关联）转换为一个 Jimmer fetcher，关联由 Jimmer 对全部根对象批量加载，
+ * 之后 AssociationBatchController 中的批量加载器直接使用已加载的数据
+ */
+@Controller
+public class EntityQueryController {
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private GraphqlProperties graphqlProperties;
+
+    @QueryMapping
+    public Book book(@Argument int id, DataFetchingEnvironment env) {
+        return sqlClient.findById(DataFetchingEnvironments.createFetcher(Book.class, env), id);
+    }
+
+    @QueryMapping
+    public List<Book> books(@Argument @Nullable String name, @Argument int first, DataFetchingEnvironment env) {
+        Fetcher<Book> fetcher = DataFetchingEnvironments.createFetcher(Book.class, env);
+        BookTable table = BookTable.$;
+        return sqlClient.createQuery(table)
+                .whereIf(name != null, () -> table.name().ilike(name))
+                .orderBy(table.id())
+                .select(table.fetch(fetcher))
+                .limit(limit(first))
+                .execute();
+    }
+
+    @QueryMapping
+    public BookStore bookStore(@Argument int id, DataFetchingEnvironment env) {
+        return sqlClient.findById(DataFetchingEnvironments.createFetcher(BookStore.class, env), id);
+    }
+
+    @QueryMapping
+    public List<BookStore> bookStores(@Argument @Nullable String name, @Argument int first, DataFetchingEnvironment env) {
+        Fetcher<BookStore> fetcher = DataFetchingEnvironments.createFetcher(BookStore.class, env);
+        BookStoreTable table = BookStoreTable.$;
+        return sqlClient.createQuery(table)
+                .whereIf(name != null, () -> table.name().ilike(name))
+                .orderBy(table.id())
+                .select(table.fetch(fetcher))
+                .limit(limit(first))
+                .execute();
+    }
+
+    @QueryMapping
+    public Author author(@Argument int id, DataFetchingEnvironment env) {
+        return sqlClient.findById(DataFetchingEnvironments.createFetcher(Author.class, env), id);
+    }
+
+    @QueryMapping
+    public List<Author> authors(@Argument @Nullable String name, @Argument int first, DataFetchingEnvironment env) {
+        Fetcher<Author> fetcher = DataFetchingEnvironments.createFetcher(Author.class, env);
+        AuthorTable table = AuthorTable.$;
+        return sqlClient.createQuery(table)
+                .whereIf(
+                        name != null,
+                        () -> table.firstName().ilike(name).or(table.lastName().ilike(name))
+                )
+                .orderBy(table.id())
+                .select(table.fetch(fetcher))
+                .limit(limit(first))
+                .execute();
+    }
+
+    private int limit(int first) {
+        return Math.max(1, Math.min(first, graphqlProperties.getMaxFirst()));
+    }
+}
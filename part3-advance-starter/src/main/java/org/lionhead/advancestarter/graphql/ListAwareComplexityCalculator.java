@@ -0,0 +1,27 @@
+package org.lionhead.advancestarter.graphql;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+
+/**
+ * 复杂度估算：每个字段计 1，列表字段的子选择集按 listFactor 倍计算
+ * 例如 bookStores { books { authors { books { name } } } } 每多一层列表复杂度就放大 listFactor 倍
+ */
+public class ListAwareComplexityCalculator implements FieldComplexityCalculator {
+
+    private final int listFactor;
+
+    public ListAwareComplexityCalculator(int listFactor) {
+        this.listFactor = listFactor;
+    }
+
+    @Override
+    public int calculate(FieldComplexityEnvironment environment, int childComplexity) {
+        if (GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()) instanceof GraphQLList) {
+            return 1 + childComplexity * listFactor;
+        }
+        return 1 + childComplexity;
+    }
+}
@@ -0,0 +1,43 @@
+package org.lionhead.advancestarter.interceptor;
+
+import org.babyfish.jimmer.ImmutableObjects;
+import org.babyfish.jimmer.sql.DraftInterceptor;
+import org.jetbrains.annotations.NotNull;
+import org.lionhead.advancestarter.entity.BaseEntity;
+import org.lionhead.advancestarter.entity.BaseEntityDraft;
+import org.lionhead.advancestarter.entity.BaseEntityProps;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 自动填充 createdTime / modifiedTime
+ * jimmer-spring-boot-starter 会自动注册容器中的 DraftInterceptor，save、saveEntities 都会经过这里。
+ * 1. 只使用 isNew，不声明 dependencies，拦截器本身不会让 Jimmer 多查询一次 original
+ * 2. 同一批对象设置的属性集合相同，saveEntities 仍然是一个 JDBC 批次
+ * 3. 更新时不设置 createdTime；数据库触发器（db/audit-timestamps.sql，dev 环境由 spring.sql.init 执行）
+ *    保证 UPSERT 冲突更新时 created_time 不被覆盖，并为 createUpdate 等绕过拦截器的 UPDATE 语句刷新 modified_time
+ * 注意：jimmer.trigger-type 为 TRANSACTION_ONLY 时，为了在事务内发出变更事件（二级缓存、检索索引依赖它），
+ * Jimmer 在每次 save、saveEntities 更新以及 createUpdate、createDelete 之前都会先查询一次旧数据，
+ * 这次查询与拦截器无关，见 AuditTimestampsTest
+ */
+@Component
+public class BaseEntityDraftInterceptor implements DraftInterceptor<BaseEntity, BaseEntityDraft> {
+
+    @Override
+    public void beforeSave(@NotNull BaseEntityDraft draft, boolean isNew) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!ImmutableObjects.isLoaded(draft, BaseEntityProps.MODIFIED_TIME)) {
+            draft.setModifiedTime(now);
+        }
+        if (isNew && !ImmutableObjects.isLoaded(draft, BaseEntityProps.CREATED_TIME)) {
+            draft.setCreatedTime(now);
+        }
+    }
+
+    // 只有 id 的关联对象不会被保存，不需要填充
+    @Override
+    public boolean ignoreIdOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package org.lionhead.advancestarter.json;
+
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * 返回值为 Jimmer 实体集合（如 List<Book>）的接口改用 ShapeJsonWriters 直接写入响应流
+ * 只负责写，其他类型以及请求体的读取仍由 Jackson 转换器处理
+ */
+public class ShapeJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ShapeJsonWriters writers;
+
+    public ShapeJsonHttpMessageConverter(ShapeJsonWriters writers) {
+        super(MediaType.APPLICATION_JSON);
+        this.writers = writers;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!Collection.class.isAssignableFrom(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        // 元素类型只能从泛型声明中得到，异步返回值等拿不到泛型的情况交给 Jackson
+        Class<?> elementType = type != null
+                ? ResolvableType.forType(type).asCollection().resolveGeneric(0)
+                : null;
+        if (elementType == null) {
+            return false;
+        }
+        ImmutableType immutableType = ImmutableType.tryGet(elementType);
+        return immutableType != null && immutableType.isEntity();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        // 与 Jackson 转换器一致，不关闭响应流
+        writers.writeList(StreamUtils.nonClosing(outputMessage.getBody()), (Collection<?>) value);
+    }
+
+    // 基类要求实现读取方法；canRead 总是返回 false，正常不会被调用
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ShapeJsonHttpMessageConverter is write-only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ShapeJsonHttpMessageConverter is write-only", inputMessage);
+    }
+}
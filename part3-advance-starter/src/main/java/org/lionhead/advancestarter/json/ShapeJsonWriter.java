@@ -0,0 +1,207 @@
+package org.lionhead.advancestarter.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.meta.PropId;
+import org.babyfish.jimmer.meta.TargetLevel;
+import org.babyfish.jimmer.runtime.ImmutableSpi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 某个实体类型在某个形状（已加载且可见的属性集合）下的专用写出器
+ * 属性顺序、属性名、值的序列化器都在创建时确定，写出时不再逐个属性查找序列化器；
+ * 标量使用 Jackson 标准序列化器时直接调用 JsonGenerator 的对应方法
+ */
+final class ShapeJsonWriter {
+
+    private static final int OTHER = 0;
+
+    private static final int STRING = 1;
+
+    private static final int INT = 2;
+
+    private static final int LONG = 3;
+
+    private static final int DOUBLE = 4;
+
+    private static final int BOOLEAN = 5;
+
+    final ImmutableType type;
+
+    final long mask;
+
+    // 与通用序列化结果不一致时为 true，该形状始终走通用路径
+    final boolean generic;
+
+    private final PropWriter[] writers;
+
+    private ShapeJsonWriter(ImmutableType type, long mask, boolean generic, PropWriter[] writers) {
+        this.type = type;
+        this.mask = mask;
+        this.generic = generic;
+        this.writers = writers;
+    }
+
+    static ShapeJsonWriter generic(ImmutableType type, long mask) {
+        return new ShapeJsonWriter(type, mask, true, new PropWriter[0]);
+    }
+
+    /**
+     * 按 ImmutableType.getProps() 的顺序创建，与 Jimmer 的 ImmutableSerializer 一致
+     */
+    static ShapeJsonWriter create(ImmutableType type, long mask, SerializerProvider provider) throws IOException {
+        List<PropWriter> writers = new ArrayList<>();
+        for (ImmutableProp prop : type.getProps().values()) {
+            if ((mask & bit(prop.getId())) == 0) {
+                continue;
+            }
+            SerializedString name = new SerializedString(prop.getName());
+            if (prop.isReferenceList(TargetLevel.OBJECT)) {
+                writers.add(new PropWriter(prop.getId(), name, PropWriter.LIST, null, OTHER));
+            } else if (prop.isReference(TargetLevel.OBJECT)) {
+                writers.add(new PropWriter(prop.getId(), name, PropWriter.REFERENCE, null, OTHER));
+            } else {
+                JsonSerializer<Object> serializer = provider.findValueSerializer(
+                        provider.constructType(prop.getGenericType())
+                );
+                writers.add(new PropWriter(prop.getId(), name, PropWriter.SCALAR, serializer, fastKind(prop, serializer)));
+            }
+        }
+        return new ShapeJsonWriter(type, mask, false, writers.toArray(new PropWriter[0]));
+    }
+
+    /**
+     * 对象的形状：已加载且可见的属性对应的位；属性超过 64 个时返回 -1，只能走通用路径
+     */
+    static long maskOf(ImmutableSpi spi) {
+        long mask = 0;
+        for (ImmutableProp prop : spi.__type().getProps().values()) {
+            PropId id = prop.getId();
+            if (id.asIndex() >= Long.SIZE) {
+                return -1;
+            }
+            if (spi.__isLoaded(id) && spi.__isVisible(id)) {
+                mask |= 1L << id.asIndex();
+            }
+        }
+        return mask;
+    }
+
+    boolean matches(ImmutableSpi spi) {
+        return spi.__type() == type && maskOf(spi) == mask;
+    }
+
+    void write(ImmutableSpi spi, JsonGenerator gen, SerializerProvider provider, ShapeJsonWriters writers)
+            throws IOException {
+        gen.writeStartObject();
+        for (PropWriter writer : this.writers) {
+            Object value = spi.__get(writer.id);
+            gen.writeFieldName(writer.name);
+            if (value == null) {
+                gen.writeNull();
+                continue;
+            }
+            switch (writer.kind) {
+                case PropWriter.REFERENCE -> writer.writeChild((ImmutableSpi) value, gen, provider, writers);
+                case PropWriter.LIST -> {
+                    List<?> list = (List<?>) value;
+                    gen.writeStartArray();
+                    for (Object element : list) {
+                        writer.writeChild((ImmutableSpi) element, gen, provider, writers);
+                    }
+                    gen.writeEndArray();
+                }
+                default -> writer.writeScalar(value, gen, provider);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static long bit(PropId id) {
+        return id.asIndex() < Long.SIZE ? 1L << id.asIndex() : 0;
+    }
+
+    // 只有 Jackson 自带的序列化器才能确定写出方式，自定义的（如 @JsonSerialize、模块注册的）仍交给序列化器
+    private static int fastKind(ImmutableProp prop, JsonSerializer<?> serializer) {
+        if (!ClassUtil.isJacksonStdImpl(serializer)) {
+            return OTHER;
+        }
+        Class<?> type = prop.getReturnClass();
+        if (type == String.class) {
+            return STRING;
+        }
+        if (type == int.class || type == Integer.class) {
+            return INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return LONG;
+        }
+        if (type == double.class || type == Double.class) {
+            return DOUBLE;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        }
+        return OTHER;
+    }
+
+    private static final class PropWriter {
+
+        static final int SCALAR = 0;
+
+        static final int REFERENCE = 1;
+
+        static final int LIST = 2;
+
+        final PropId id;
+
+        final SerializableString name;
+
+        final int kind;
+
+        final JsonSerializer<Object> serializer;
+
+        final int fastKind;
+
+        // 上一次关联对象使用的写出器，同一个列表中的关联对象形状一般相同
+        private volatile ShapeJsonWriter child;
+
+        PropWriter(PropId id, SerializableString name, int kind, JsonSerializer<Object> serializer, int fastKind) {
+            this.id = id;
+            this.name = name;
+            this.kind = kind;
+            this.serializer = serializer;
+            this.fastKind = fastKind;
+        }
+
+        void writeScalar(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            switch (fastKind) {
+                case STRING -> gen.writeString((String) value);
+                case INT -> gen.writeNumber((Integer) value);
+                case LONG -> gen.writeNumber((Long) value);
+                case DOUBLE -> gen.writeNumber((Double) value);
+                case BOOLEAN -> gen.writeBoolean((Boolean) value);
+                default -> serializer.serialize(value, gen, provider);
+            }
+        }
+
+        void writeChild(ImmutableSpi value, JsonGenerator gen, SerializerProvider provider, ShapeJsonWriters writers)
+                throws IOException {
+            ShapeJsonWriter writer = child;
+            if (writer == null || !writer.matches(value)) {
+                writer = writers.writerFor(value);
+                child = writer;
+            }
+            writers.write(writer, value, gen, provider);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.lionhead.advancestarter.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.runtime.ImmutableSpi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按抓取形状专门化的 Jimmer 实体 JSON 写出
+ * 通用路径（ImmutableModule 的 ImmutableSerializer）对每个对象的每个属性都要判断加载状态、查找序列化器；
+ * 同一个 Fetcher 查出的对象形状相同，这里为每个形状（实体类型 + 已加载属性）创建一次 ShapeJsonWriter 并缓存。
+ * 输出必须与通用路径逐字节一致：每个形状第一次出现时，用该对象分别走两条路径比较，
+ * 不一致（如使用了 @JsonView、命名策略、自定义序列化器等）则该形状固定走通用路径
+ */
+public class ShapeJsonWriters {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShapeJsonWriters.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter genericWriter;
+
+    private final Map<ShapeKey, ShapeJsonWriter> writerMap = new ConcurrentHashMap<>();
+
+    public ShapeJsonWriters(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.genericWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * 以 JSON 数组写出，与 objectMapper.writeValue(out, values) 的结果一致
+     */
+    public void writeList(OutputStream out, Collection<?> values) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writeList(gen, values);
+        }
+    }
+
+    public void writeList(JsonGenerator gen, Collection<?> values) throws IOException {
+        SerializerProvider provider = objectMapper.getSerializerProviderInstance();
+        gen.writeStartArray();
+        ShapeJsonWriter writer = null;
+        for (Object value : values) {
+            if (!(value instanceof ImmutableSpi spi)) {
+                genericWriter.writeValue(gen, value);
+                continue;
+            }
+            if (writer == null || !writer.matches(spi)) {
+                writer = writerFor(spi);
+            }
+            write(writer, spi, gen, provider);
+        }
+        gen.writeEndArray();
+    }
+
+    public int shapeCount() {
+        return writerMap.size();
+    }
+
+    void write(ShapeJsonWriter writer, ImmutableSpi spi, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        if (writer.generic) {
+            genericWriter.writeValue(gen, spi);
+        } else {
+            writer.write(spi, gen, provider, this);
+        }
+    }
+
+    // 不用 computeIfAbsent：校验时写出关联对象会递归创建子形状的写出器
+    ShapeJsonWriter writerFor(ImmutableSpi spi) throws IOException {
+        ImmutableType type = spi.__type();
+        long mask = ShapeJsonWriter.maskOf(spi);
+        ShapeKey key = new ShapeKey(type, mask);
+        ShapeJsonWriter writer = writerMap.get(key);
+        if (writer != null) {
+            return writer;
+        }
+        if (mask == -1) {
+            writer = ShapeJsonWriter.generic(type, mask);
+        } else {
+            writer = verify(
+                    ShapeJsonWriter.create(type, mask, objectMapper.getSerializerProviderInstance()),
+                    spi
+            );
+        }
+        ShapeJsonWriter existing = writerMap.putIfAbsent(key, writer);
+        return existing != null ? existing : writer;
+    }
+
+    private ShapeJsonWriter verify(ShapeJsonWriter writer, ImmutableSpi sample) throws IOException {
+        byte[] expected = genericWriter.writeValueAsBytes(sample);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expected.length);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writer.write(sample, gen, objectMapper.getSerializerProviderInstance(), this);
+        }
+        if (Arrays.equals(expected, out.toByteArray())) {
+            return writer;
+        }
+        logger.warn(
+                "Shape-specialized JSON of {} differs from the generic serializer, falling back: {} != {}",
+                writer.type,
+                out.toString(StandardCharsets.UTF_8),
+                new String(expected, StandardCharsets.UTF_8)
+        );
+        return ShapeJsonWriter.generic(writer.type, writer.mask);
+    }
+
+    private record ShapeKey(ImmutableType type, long mask) {
+    }
+}
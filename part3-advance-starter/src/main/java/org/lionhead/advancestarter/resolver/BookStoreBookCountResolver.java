@@ -0,0 +1,64 @@
+package org.lionhead.advancestarter.resolver;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.lang.Ref;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.TransientResolver;
+import org.babyfish.jimmer.sql.ast.tuple.Tuple2;
+import org.babyfish.jimmer.sql.event.AssociationEvent;
+import org.babyfish.jimmer.sql.event.EntityEvent;
+import org.jetbrains.annotations.NotNull;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * BookStore.bookCount
+ * 不再加载完整的 BookStore.books，对一次抓取中的所有书店只执行一条 GROUP BY
+ */
+@Component
+public class BookStoreBookCountResolver implements TransientResolver<Integer, Long> {
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Override
+    public Map<Integer, Long> resolve(Collection<Integer> ids) {
+        BookTable table = BookTable.$;
+        return Tuple2.toMap(
+                sqlClient.createQuery(table)
+                        .where(table.bookStoreId().in(ids))
+                        .groupBy(table.bookStoreId())
+                        .select(table.bookStoreId(), table.count())
+                        .execute()
+        );
+    }
+
+    // 没有图书的书店不会出现在 GROUP BY 结果中
+    @Override
+    public Long getDefaultValue() {
+        return 0L;
+    }
+
+    // 计算结果受 Book 上的全局过滤器影响，缓存 key 需要带上过滤参数
+    @Override
+    public Ref<SortedMap<String, Object>> getParameterMapRef() {
+        return sqlClient.getFilters().getTargetParameterMapRef(BookStoreProps.BOOKS);
+    }
+
+    // 图书换了书店（或新增、删除图书）时，新旧书店的数量都会变化
+    @Override
+    public Collection<?> getAffectedSourceIds(@NotNull AssociationEvent e) {
+        return BookStoreResolvers.affectedByStoreChange(sqlClient, e);
+    }
+
+    // 数量与图书的其他字段无关
+    @Override
+    public Collection<?> getAffectedSourceIds(@NotNull EntityEvent<?> e) {
+        return null;
+    }
+}
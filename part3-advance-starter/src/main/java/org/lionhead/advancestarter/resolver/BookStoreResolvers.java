@@ -0,0 +1,38 @@
+package org.lionhead.advancestarter.resolver;
+
+import org.babyfish.jimmer.lang.Ref;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.event.AssociationEvent;
+import org.babyfish.jimmer.sql.event.EntityEvent;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * BookStore 计算属性的缓存失效规则
+ */
+final class BookStoreResolvers {
+
+    private BookStoreResolvers() {
+    }
+
+    // Book.bookStore 变化时 Jimmer 同时会触发反向的 BookStore.books 事件，sourceId 即书店 id
+    static Collection<?> affectedByStoreChange(JSqlClient sqlClient, AssociationEvent e) {
+        if (sqlClient.getCaches().isAffectedBy(e) && e.getImmutableProp() == BookStoreProps.BOOKS.unwrap()) {
+            return Collections.singletonList(e.getSourceId());
+        }
+        return null;
+    }
+
+    // 书店未变化时才能从事件中拿到书店 id，书店变化由 affectedByStoreChange 处理
+    static Collection<?> currentStoreId(EntityEvent<?> e) {
+        Ref<BookStore> storeRef = e.getUnchangedRef(BookProps.BOOK_STORE);
+        if (storeRef != null && storeRef.getValue() != null) {
+            return Collections.singletonList(storeRef.getValue().id());
+        }
+        return null;
+    }
+}
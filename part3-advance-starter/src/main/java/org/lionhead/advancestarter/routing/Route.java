@@ -0,0 +1,100 @@
+package org.lionhead.advancestarter.routing;
+
+import org.lionhead.advancestarter.executor.LatencyHistogram;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个路由目标（主库或某个从库）以及它的指标
+ */
+public class Route {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private final boolean primary;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    // 连接从借出到归还的时间
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    Route(String name, DataSource dataSource, boolean primary) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.primary = primary;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    Lease lease() throws SQLException {
+        Connection con;
+        try {
+            con = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            errors.increment();
+            throw e;
+        }
+        acquisitions.increment();
+        inFlight.incrementAndGet();
+        return new Lease(this, con, System.nanoTime());
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(
+                name,
+                primary,
+                acquisitions.sum(),
+                inFlight.get(),
+                errors.sum(),
+                holdTime.percentileMillis(0.5),
+                holdTime.percentileMillis(0.99),
+                holdTime.maxMillis()
+        );
+    }
+
+    // 借出的物理连接，close 时归还并记录占用时间
+    record Lease(Route route, Connection connection, long acquiredAt) {
+
+        boolean isPrimary() {
+            return route.primary;
+        }
+
+        void close() throws SQLException {
+            route.inFlight.decrementAndGet();
+            route.holdTime.record(System.nanoTime() - acquiredAt);
+            connection.close();
+        }
+    }
+
+    public record Snapshot(
+            String name,
+            boolean primary,
+            long acquisitions,
+            int inFlight,
+            long errors,
+            double holdP50Millis,
+            double holdP99Millis,
+            double holdMaxMillis
+    ) {
+    }
+}
@@ -0,0 +1,36 @@
+package org.lionhead.advancestarter.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * 强制走主库
+ * 从库有复制延迟，刚写完马上要读到最新数据（且不在同一个事务中）时使用：
+ * <pre>
+ * RouteContext.primary(() -> sqlClient.findById(Book.class, id))
+ * </pre>
+ */
+public final class RouteContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private RouteContext() {
+    }
+
+    public static <T> T primary(Supplier<T> action) {
+        Boolean old = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (old != null) {
+                PRIMARY.set(old);
+            } else {
+                PRIMARY.remove();
+            }
+        }
+    }
+
+    static boolean isPrimaryForced() {
+        return PRIMARY.get() != null;
+    }
+}
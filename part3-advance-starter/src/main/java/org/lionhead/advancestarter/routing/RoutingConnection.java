@@ -0,0 +1,156 @@
+package org.lionhead.advancestarter.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/**
+ * RoutingDataSource 返回的延迟连接
+ * 在第一条语句之前只记录 autoCommit / readOnly / 隔离级别，第一条语句执行时再决定路由：
+ * 1. 读写事务（autoCommit = false 且非只读）：主库，事务中的读也走主库
+ * 2. 只读事务：从库
+ * 3. 自动提交：SELECT 走从库，其余语句走主库；已在从库上时遇到写语句，归还从库连接改用主库，
+ *    之后的读也留在主库，保证读到自己刚写入的数据
+ * 无法判断用途的调用（createStatement、unwrap 等）一律走主库
+ */
+class RoutingConnection implements InvocationHandler {
+
+    private static final Pattern READ_SQL = Pattern.compile("^\\s*(\\(\\s*)*(select|with)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern WRITE_KEYWORD = Pattern.compile(
+            "\\b(insert|update|delete|merge|for\\s+update|for\\s+share|for\\s+no\\s+key\\s+update)\\b",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    // 序列函数会修改序列（从库上直接报错），currval / lastval 依赖同一会话中的 nextval
+    private static final Pattern SEQUENCE_FUNCTION = Pattern.compile(
+            "\\b(nextval|setval|currval|lastval)\\s*\\(",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private final RoutingDataSource dataSource;
+
+    private Route.Lease lease;
+
+    private boolean autoCommit = true;
+
+    private boolean readOnly;
+
+    private Integer isolation;
+
+    private boolean closed;
+
+    RoutingConnection(RoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "RoutingConnection(" + (lease != null ? lease.route().getName() : "unresolved") + ")";
+            case "isClosed":
+                return closed;
+            case "close":
+                close();
+                return null;
+            default:
+                break;
+        }
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+        if (lease == null) {
+            switch (name) {
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setReadOnly":
+                    readOnly = (Boolean) args[0];
+                    return null;
+                case "isReadOnly":
+                    return readOnly;
+                case "setTransactionIsolation":
+                    isolation = (Integer) args[0];
+                    return null;
+                // 还没有执行过语句，提交和回滚都没有意义
+                case "commit":
+                case "rollback":
+                    if (args == null || args.length == 0) {
+                        return null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        boolean statement = name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("nativeSQL");
+        Connection target = target(statement && sql != null && isRead(sql));
+        if (name.equals("setAutoCommit")) {
+            autoCommit = (Boolean) args[0];
+        } else if (name.equals("setReadOnly")) {
+            readOnly = (Boolean) args[0];
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private Connection target(boolean read) throws SQLException {
+        boolean replica = read && autoCommit || readOnly;
+        if (lease == null) {
+            lease = replica ? dataSource.acquireReplica() : dataSource.primary().lease();
+            apply(lease.connection());
+        } else if (!replica && !lease.isPrimary() && autoCommit && !readOnly) {
+            // 自动提交模式下从库连接上没有未提交的状态，可以直接切换
+            Route.Lease old = lease;
+            lease = dataSource.primary().lease();
+            old.close();
+            apply(lease.connection());
+        }
+        return lease.connection();
+    }
+
+    private void apply(Connection con) throws SQLException {
+        if (isolation != null) {
+            con.setTransactionIsolation(isolation);
+        }
+        if (readOnly) {
+            con.setReadOnly(true);
+        }
+        if (!autoCommit) {
+            con.setAutoCommit(false);
+        }
+    }
+
+    private void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (lease != null) {
+            Route.Lease current = lease;
+            lease = null;
+            current.close();
+        }
+    }
+
+    static boolean isRead(String sql) {
+        return READ_SQL.matcher(sql).find()
+                && !WRITE_KEYWORD.matcher(sql).find()
+                && !SEQUENCE_FUNCTION.matcher(sql).find();
+    }
+}
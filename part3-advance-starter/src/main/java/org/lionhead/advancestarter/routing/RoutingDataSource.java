@@ -0,0 +1,169 @@
+package org.lionhead.advancestarter.routing;
+
+import org.lionhead.advancestarter.config.RoutingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离的 DataSource
+ * getConnection 返回一个延迟连接，第一条语句执行时才决定借用主库还是从库的物理连接（见 RoutingConnection）。
+ * 放在 DataSource 这一层而不是替换 Jimmer 的 ConnectionManager：starter 的 SpringConnectionManager、
+ * Spring 事务以及直接使用 JDBC 的代码（COPY、递归 CTE）都无需改动就能参与路由
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    private final Route primary;
+
+    private final List<Route> replicas;
+
+    private final RoutingProperties.Balance balance;
+
+    private final boolean fallbackToPrimary;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public RoutingDataSource(
+            DataSource primary,
+            List<? extends DataSource> replicas,
+            List<String> replicaNames,
+            RoutingProperties.Balance balance,
+            boolean fallbackToPrimary
+    ) {
+        this.primary = new Route("primary", primary, true);
+        List<Route> routes = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            routes.add(new Route(replicaNames.get(i), replicas.get(i), false));
+        }
+        this.replicas = List.copyOf(routes);
+        this.balance = balance;
+        this.fallbackToPrimary = fallbackToPrimary;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return (Connection) Proxy.newProxyInstance(
+                RoutingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new RoutingConnection(this)
+        );
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("RoutingDataSource uses the credentials of each route");
+    }
+
+    public List<Route.Snapshot> snapshot() {
+        List<Route.Snapshot> snapshots = new ArrayList<>(replicas.size() + 1);
+        snapshots.add(primary.snapshot());
+        for (Route replica : replicas) {
+            snapshots.add(replica.snapshot());
+        }
+        return snapshots;
+    }
+
+    Route primary() {
+        return primary;
+    }
+
+    // 按负载均衡策略依次尝试从库，都失败时回退主库
+    Route.Lease acquireReplica() throws SQLException {
+        if (!replicas.isEmpty() && !RouteContext.isPrimaryForced()) {
+            int size = replicas.size();
+            int start = balance == RoutingProperties.Balance.LEAST_BUSY
+                    ? leastBusy()
+                    : Math.floorMod(sequence.getAndIncrement(), size);
+            SQLException last = null;
+            for (int i = 0; i < size; i++) {
+                Route route = replicas.get((start + i) % size);
+                try {
+                    return route.lease();
+                } catch (SQLException e) {
+                    last = e;
+                    logger.warn("Replica {} is unavailable: {}", route.getName(), e.getMessage());
+                }
+            }
+            if (!fallbackToPrimary) {
+                throw last;
+            }
+        }
+        return primary.lease();
+    }
+
+    private int leastBusy() {
+        int size = replicas.size();
+        // 从轮询位置开始找，负载相同时不会总是选中第一个
+        int start = Math.floorMod(sequence.getAndIncrement(), size);
+        int best = start;
+        int bestInFlight = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            int inFlight = replicas.get(index).inFlight();
+            if (inFlight < bestInFlight) {
+                best = index;
+                bestInFlight = inFlight;
+            }
+        }
+        return best;
+    }
+
+    // 只关闭从库，主库数据源由创建它的一方负责
+    @Override
+    public void close() throws Exception {
+        for (Route replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getDataSource().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.getDataSource().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.getDataSource().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getDataSource().getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getDataSource().getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.getDataSource().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.getDataSource().isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,24 @@
+package org.lionhead.advancestarter.routing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * /actuator/jimmerroutes：主库和各从库的连接借用次数、当前借出数、错误数和占用时间
+ */
+@Endpoint(id = "jimmerroutes")
+public class RoutingEndpoint {
+
+    private final RoutingDataSource dataSource;
+
+    public RoutingEndpoint(RoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @ReadOperation
+    public List<Route.Snapshot> routes() {
+        return dataSource.snapshot();
+    }
+}
@@ -0,0 +1,156 @@
+package org.lionhead.advancestarter.schema;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.DatabaseValidationMode;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.lionhead.advancestarter.config.SchemaValidationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 应用就绪后在后台校验数据库结构，不阻塞启动
+ * 1. 计算指纹（一次 catalog 查询），与上次完整校验通过时保存的指纹一致则直接通过
+ * 2. 否则用 Jimmer 自身的校验（DatabaseValidationMode.ERROR）做一次完整校验，通过后保存新指纹
+ * 校验结果由 SchemaValidationHealthIndicator 暴露，失败时 /actuator/health 返回 DOWN
+ */
+@Component
+@ConditionalOnProperty(prefix = "lionhead.schema-validation", name = "mode", havingValue = "BACKGROUND")
+public class BackgroundSchemaValidator implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundSchemaValidator.class);
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private DataSource dataSource;
+
+    @Resource
+    private SchemaValidationProperties properties;
+
+    @Resource
+    private Environment environment;
+
+    private volatile Result result = new Result(Status.PENDING, null, 0, null);
+
+    public Result getResult() {
+        return result;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Thread.ofPlatform()
+                .name("schema-validation")
+                .daemon()
+                .start(this::validate);
+    }
+
+    private void validate() {
+        result = new Result(Status.RUNNING, null, 0, null);
+        long start = System.nanoTime();
+        JSqlClientImplementor implementor = (JSqlClientImplementor) sqlClient;
+        String fingerprint;
+        try (Connection con = dataSource.getConnection()) {
+            fingerprint = SchemaFingerprint.compute(
+                    implementor.getEntityManager(),
+                    implementor.getMetadataStrategy(),
+                    con
+            );
+        } catch (SQLException | RuntimeException e) {
+            finish(Status.FAILED, Source.FINGERPRINT, start, "Cannot compute schema fingerprint: " + e.getMessage());
+            return;
+        }
+        if (fingerprint.equals(readFingerprint())) {
+            finish(Status.PASSED, Source.FINGERPRINT, start, null);
+            return;
+        }
+        try {
+            // build() 会按 ERROR 模式完整校验，不一致时抛出 DatabaseValidationException
+            JSqlClient.newBuilder()
+                    .setEntityManager(implementor.getEntityManager())
+                    .setDialect(implementor.getDialect())
+                    .setDatabaseNamingStrategy(implementor.getMetadataStrategy().getNamingStrategy())
+                    .setConnectionManager(ConnectionManager.simpleConnectionManager(dataSource))
+                    .setDatabaseValidationMode(DatabaseValidationMode.ERROR)
+                    .build();
+        } catch (RuntimeException e) {
+            finish(Status.FAILED, Source.FULL, start, e.getMessage());
+            return;
+        }
+        writeFingerprint(fingerprint);
+        finish(Status.PASSED, Source.FULL, start, null);
+    }
+
+    private void finish(Status status, Source source, long start, String message) {
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        result = new Result(status, source, millis, message);
+        if (status == Status.PASSED) {
+            logger.info("Schema validation passed by {} check in {} ms", source, millis);
+        } else {
+            logger.error("Schema validation failed by {} check in {} ms: {}", source, millis, message);
+        }
+    }
+
+    private String readFingerprint() {
+        Path file = fingerprintFile();
+        try {
+            return Files.exists(file) ? Files.readString(file, StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            logger.warn("Cannot read schema fingerprint {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    // 写入失败只影响下次启动是否需要完整校验
+    private void writeFingerprint(String fingerprint) {
+        Path file = fingerprintFile();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, fingerprint, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Cannot write schema fingerprint {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path fingerprintFile() {
+        if (properties.getFingerprintFile() != null) {
+            return properties.getFingerprintFile();
+        }
+        String application = environment.getProperty("spring.application.name", "application");
+        return Path.of(System.getProperty("java.io.tmpdir"), application + "-schema-fingerprint");
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        PASSED,
+        FAILED
+    }
+
+    public enum Source {
+        // 指纹一致，跳过完整校验
+        FINGERPRINT,
+        // Jimmer 完整校验
+        FULL
+    }
+
+    public record Result(Status status, Source source, long durationMillis, String message) {
+    }
+}
@@ -0,0 +1,104 @@
+package org.lionhead.advancestarter.schema;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.sql.meta.ColumnDefinition;
+import org.babyfish.jimmer.sql.meta.MetadataStrategy;
+import org.babyfish.jimmer.sql.meta.MiddleTable;
+import org.babyfish.jimmer.sql.meta.Storage;
+import org.babyfish.jimmer.sql.runtime.EntityManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 数据库结构指纹 = 实体模型（包括映射到的表名、列名、中间表、命名策略）+ 当前 schema 的列和约束
+ * 只修改 @Table、@Column、@JoinColumn、@JoinTable 或命名策略时属性本身不变，也必须让指纹变化
+ * 数据库一侧只需要一次查询，而完整校验会按表逐个读取 JDBC 元数据，远程数据库上要多次往返
+ */
+final class SchemaFingerprint {
+
+    private static final String CATALOG_SQL =
+            "select 'C' as kind, table_name, column_name as name, data_type as detail, is_nullable as extra " +
+                    "from information_schema.columns where table_schema = current_schema() " +
+                    "union all " +
+                    "select 'K', tc.table_name, tc.constraint_name, tc.constraint_type, " +
+                    "string_agg(kcu.column_name, ',' order by kcu.ordinal_position) " +
+                    "from information_schema.table_constraints tc " +
+                    "left join information_schema.key_column_usage kcu " +
+                    "on kcu.constraint_schema = tc.constraint_schema and kcu.constraint_name = tc.constraint_name " +
+                    "where tc.table_schema = current_schema() and tc.constraint_type in ('PRIMARY KEY', 'FOREIGN KEY', 'UNIQUE') " +
+                    "group by tc.table_name, tc.constraint_name, tc.constraint_type " +
+                    "order by 1, 2, 3";
+
+    private SchemaFingerprint() {
+    }
+
+    static String compute(EntityManager entityManager, MetadataStrategy strategy, Connection con) throws SQLException {
+        MessageDigest digest = sha256();
+        update(digest, strategy.getNamingStrategy().getClass().getName());
+        List<ImmutableType> types = entityManager.getAllTypes(null)
+                .stream()
+                .filter(ImmutableType::isEntity)
+                .sorted(Comparator.comparing(ImmutableType::toString))
+                .toList();
+        for (ImmutableType type : types) {
+            update(digest, type.toString() + ':' + type.getTableName(strategy));
+            for (ImmutableProp prop : type.getProps().values()) {
+                update(digest, prop.getName() + ':' + prop.getReturnClass().getName() + ':' + prop.isNullable());
+                if (prop.isColumnDefinition() || prop.isMiddleTableDefinition()) {
+                    updateStorage(digest, prop.getStorage(strategy));
+                }
+            }
+        }
+        try (PreparedStatement stmt = con.prepareStatement(CATALOG_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                for (int i = 1; i <= 5; i++) {
+                    update(digest, rs.getString(i));
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 列（包括外键列、多列外键）按顺序写入；中间表写入表名和两侧的外键列
+    private static void updateStorage(MessageDigest digest, Storage storage) {
+        if (storage instanceof ColumnDefinition columns) {
+            updateColumns(digest, columns);
+        } else if (storage instanceof MiddleTable middleTable) {
+            update(digest, "middle:" + middleTable.getTableName());
+            updateColumns(digest, middleTable.getColumnDefinition());
+            updateColumns(digest, middleTable.getTargetColumnDefinition());
+        }
+    }
+
+    private static void updateColumns(MessageDigest digest, ColumnDefinition columns) {
+        StringBuilder builder = new StringBuilder(columns.isForeignKey() ? "fk:" : "column:");
+        for (String column : columns) {
+            builder.append(column).append(',');
+        }
+        update(digest, builder.toString());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update((value != null ? value : "\0").getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.lionhead.advancestarter.schema;
+
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/health 中的 schemaValidation
+ * 校验进行中为 UNKNOWN（不影响整体状态），失败为 DOWN
+ */
+@Component
+@ConditionalOnProperty(prefix = "lionhead.schema-validation", name = "mode", havingValue = "BACKGROUND")
+public class SchemaValidationHealthIndicator implements HealthIndicator {
+
+    @Resource
+    private BackgroundSchemaValidator validator;
+
+    @Override
+    public Health health() {
+        BackgroundSchemaValidator.Result result = validator.getResult();
+        Health.Builder builder = switch (result.status()) {
+            case PENDING, RUNNING -> Health.unknown();
+            case PASSED -> Health.up();
+            case FAILED -> Health.down();
+        };
+        builder.withDetail("status", result.status());
+        if (result.source() != null) {
+            builder.withDetail("source", result.source())
+                    .withDetail("durationMillis", result.durationMillis());
+        }
+        if (result.message() != null) {
+            builder.withDetail("message", result.message());
+        }
+        return builder.build();
+    }
+}
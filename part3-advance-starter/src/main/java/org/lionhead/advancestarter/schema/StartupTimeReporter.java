@@ -0,0 +1,35 @@
+package org.lionhead.advancestarter.schema;
+
+import jakarta.annotation.Resource;
+import org.lionhead.advancestarter.config.SchemaValidationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 输出启动耗时以及当时的校验方式，scripts/startup-time.sh 据此对比两种模式
+ */
+@Component
+public class StartupTimeReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    @Resource
+    private SchemaValidationProperties properties;
+
+    @Resource
+    private Environment environment;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        logger.info(
+                "Startup time: {} ms (jimmer.database-validation-mode={}, lionhead.schema-validation.mode={})",
+                event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1,
+                environment.getProperty("jimmer.database-validation-mode", "NONE"),
+                properties.getMode()
+        );
+    }
+}
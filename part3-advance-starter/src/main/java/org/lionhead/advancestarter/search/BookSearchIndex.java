@@ -0,0 +1,456 @@
+package org.lionhead.advancestarter.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Book.name、Author.firstName、Author.lastName 的内存倒排索引
+ * 1. 书名：词 -> 图书 id；作者名：词 -> 作者 id，再通过作者 -> 图书 id 展开
+ * 2. 查询中的每个词匹配包含它的词（"gram" 命中 "programming"），少于 3 个字符的查询词只做前缀匹配；
+ *    所有词都要命中（AND）
+ * 3. 评分：命中词的 idf × 字段权重，完整匹配 > 前缀匹配 > 中缀匹配；同一个词在书名和作者名中都命中时取较高者
+ * 4. 每本书记录所属租户，租户 -> 图书 id 也是一个倒排列表，先按租户过滤再取前 limit 个
+ * 词典是 TreeMap 以支持前缀查找，另有三元组 -> 词的索引支持中缀查找，倒排列表是 IntPostings；
+ * 读多写少，用读写锁保护
+ */
+public class BookSearchIndex {
+
+    // 前缀匹配、中缀匹配相对完整匹配的得分折扣
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    private static final float INFIX_FACTOR = 0.25f;
+
+    // 中缀查找使用的 n-gram 长度
+    private static final int GRAM = 3;
+
+    private final float nameWeight;
+
+    private final float authorWeight;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Terms nameTerms = new Terms();
+
+    private final Terms authorTerms = new Terms();
+
+    private final Map<String, IntPostings> tenantBooks = new HashMap<>();
+
+    private final Map<Integer, String> bookTenants = new HashMap<>();
+
+    // 删除、更新时需要知道原来的词
+    private final Map<Integer, String[]> bookTokens = new HashMap<>();
+
+    private final Map<Integer, String[]> authorTokens = new HashMap<>();
+
+    private final Map<Integer, IntPostings> authorBooks = new HashMap<>();
+
+    private final Map<Integer, int[]> bookAuthors = new HashMap<>();
+
+    public BookSearchIndex(float nameWeight, float authorWeight) {
+        this.nameWeight = nameWeight;
+        this.authorWeight = authorWeight;
+    }
+
+    public void putBook(int bookId, String tenant, String name, int[] authorIds) {
+        lock.writeLock().lock();
+        try {
+            String[] tokens = TextTokenizer.tokenize(name).toArray(String[]::new);
+            replaceTokens(nameTerms, bookId, bookTokens.put(bookId, tokens), tokens);
+            removeTenant(bookId, bookTenants.put(bookId, tenant));
+            tenantBooks.computeIfAbsent(tenant, k -> new IntPostings()).add(bookId);
+            int[] oldAuthorIds = bookAuthors.put(bookId, authorIds);
+            if (oldAuthorIds != null) {
+                for (int authorId : oldAuthorIds) {
+                    IntPostings books = authorBooks.get(authorId);
+                    if (books != null) {
+                        books.remove(bookId);
+                    }
+                }
+            }
+            for (int authorId : authorIds) {
+                authorBooks.computeIfAbsent(authorId, k -> new IntPostings()).add(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBook(int bookId) {
+        lock.writeLock().lock();
+        try {
+            replaceTokens(nameTerms, bookId, bookTokens.remove(bookId), null);
+            removeTenant(bookId, bookTenants.remove(bookId));
+            int[] authorIds = bookAuthors.remove(bookId);
+            if (authorIds != null) {
+                for (int authorId : authorIds) {
+                    IntPostings books = authorBooks.get(authorId);
+                    if (books != null) {
+                        books.remove(bookId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAuthor(int authorId, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            List<String> list = new ArrayList<>(TextTokenizer.tokenize(firstName));
+            for (String token : TextTokenizer.tokenize(lastName)) {
+                if (!list.contains(token)) {
+                    list.add(token);
+                }
+            }
+            String[] tokens = list.toArray(String[]::new);
+            replaceTokens(authorTerms, authorId, authorTokens.put(authorId, tokens), tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 作者与图书的关联在 putBook / removeBook 中维护，这里只删除作者名
+    public void removeAuthor(int authorId) {
+        lock.writeLock().lock();
+        try {
+            replaceTokens(authorTerms, authorId, authorTokens.remove(authorId), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nameTerms.clear();
+            authorTerms.clear();
+            tenantBooks.clear();
+            bookTenants.clear();
+            bookTokens.clear();
+            authorTokens.clear();
+            authorBooks.clear();
+            bookAuthors.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 全量建索引后调用，释放倒排列表扩容时多出的空间
+    public void trimToSize() {
+        lock.writeLock().lock();
+        try {
+            nameTerms.trimToSize();
+            authorTerms.trimToSize();
+            tenantBooks.values().forEach(IntPostings::trimToSize);
+            authorBooks.values().forEach(IntPostings::trimToSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按得分从高到低返回 tenant 的前 limit 个图书，得分相同时 id 小的在前；
+     * tenant 为 null 时不过滤租户，只应在 ADMIN 下使用
+     */
+    public List<Hit> search(String query, String tenant, int limit) {
+        List<String> tokens = TextTokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Matches matches = null;
+        lock.readLock().lock();
+        try {
+            IntPostings tenantIds = null;
+            if (tenant != null) {
+                tenantIds = tenantBooks.get(tenant);
+                if (tenantIds == null) {
+                    return List.of();
+                }
+            }
+            for (String token : tokens) {
+                Matches tokenMatches = match(token);
+                matches = matches == null ? tokenMatches : matches.intersect(tokenMatches);
+                if (matches.size == 0) {
+                    return List.of();
+                }
+            }
+            // 在取前 limit 个之前过滤租户，其他租户的高分图书不会挤掉本租户的结果
+            if (tenantIds != null) {
+                matches = matches.retain(tenantIds);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.top(limit);
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(bookTokens.size(), authorTokens.size(), nameTerms.size(), authorTerms.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void replaceTokens(Terms terms, int id, String[] oldTokens, String[] newTokens) {
+        if (oldTokens != null) {
+            for (String token : oldTokens) {
+                terms.remove(token, id);
+            }
+        }
+        if (newTokens != null) {
+            for (String token : newTokens) {
+                terms.add(token, id);
+            }
+        }
+    }
+
+    private void removeTenant(int bookId, String tenant) {
+        if (tenant == null) {
+            return;
+        }
+        IntPostings books = tenantBooks.get(tenant);
+        if (books != null && books.remove(bookId) && books.isEmpty()) {
+            tenantBooks.remove(tenant);
+        }
+    }
+
+    // 一个查询词命中的所有图书及得分
+    private Matches match(String token) {
+        PairBuffer pairs = new PairBuffer();
+        int bookCount = bookTokens.size();
+        for (Map.Entry<String, IntPostings> e : nameTerms.containing(token).entrySet()) {
+            IntPostings postings = e.getValue();
+            float score = nameWeight * idf(bookCount, postings.size()) * exactFactor(e.getKey(), token);
+            for (int i = 0; i < postings.size(); i++) {
+                pairs.add(postings.get(i), score);
+            }
+        }
+        int authorCount = authorTokens.size();
+        for (Map.Entry<String, IntPostings> e : authorTerms.containing(token).entrySet()) {
+            IntPostings postings = e.getValue();
+            float score = authorWeight * idf(authorCount, postings.size()) * exactFactor(e.getKey(), token);
+            for (int i = 0; i < postings.size(); i++) {
+                IntPostings books = authorBooks.get(postings.get(i));
+                if (books != null) {
+                    for (int j = 0; j < books.size(); j++) {
+                        pairs.add(books.get(j), score);
+                    }
+                }
+            }
+        }
+        return pairs.toMatches();
+    }
+
+    private static float idf(int total, int df) {
+        return (float) Math.log(1 + (double) total / df);
+    }
+
+    private static float exactFactor(String term, String token) {
+        if (term.length() == token.length()) {
+            return 1;
+        }
+        return term.startsWith(token) ? PREFIX_FACTOR : INFIX_FACTOR;
+    }
+
+    /**
+     * 一个字段的词典：词 -> 倒排列表，以及长度不小于 GRAM 的词的三元组 -> 词
+     */
+    private static final class Terms {
+
+        private final TreeMap<String, IntPostings> postings = new TreeMap<>();
+
+        private final Map<String, Set<String>> grams = new HashMap<>();
+
+        void add(String term, int id) {
+            IntPostings ids = postings.get(term);
+            if (ids == null) {
+                ids = new IntPostings();
+                postings.put(term, ids);
+                for (String gram : grams(term)) {
+                    grams.computeIfAbsent(gram, k -> new HashSet<>()).add(term);
+                }
+            }
+            ids.add(id);
+        }
+
+        void remove(String term, int id) {
+            IntPostings ids = postings.get(term);
+            if (ids == null || !ids.remove(id) || !ids.isEmpty()) {
+                return;
+            }
+            postings.remove(term);
+            for (String gram : grams(term)) {
+                Set<String> terms = grams.get(gram);
+                if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+
+        // 包含 token 的所有词；token 短于 GRAM 时只查前缀
+        Map<String, IntPostings> containing(String token) {
+            if (token.length() < GRAM) {
+                return postings.subMap(token, true, token + Character.MAX_VALUE, false);
+            }
+            // 取最短的候选集合，再逐个确认包含关系
+            Set<String> candidates = null;
+            for (String gram : grams(token)) {
+                Set<String> terms = grams.get(gram);
+                if (terms == null) {
+                    return Map.of();
+                }
+                if (candidates == null || terms.size() < candidates.size()) {
+                    candidates = terms;
+                }
+            }
+            Map<String, IntPostings> result = new HashMap<>();
+            for (String term : candidates) {
+                if (term.contains(token)) {
+                    result.put(term, postings.get(term));
+                }
+            }
+            return result;
+        }
+
+        int size() {
+            return postings.size();
+        }
+
+        void clear() {
+            postings.clear();
+            grams.clear();
+        }
+
+        void trimToSize() {
+            postings.values().forEach(IntPostings::trimToSize);
+        }
+
+        private static Set<String> grams(String term) {
+            if (term.length() < GRAM) {
+                return Set.of();
+            }
+            Set<String> result = new LinkedHashSet<>();
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                result.add(term.substring(i, i + GRAM));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * (图书 id, 得分) 打包成 long：高 32 位 id，低 32 位得分的 IEEE 位模式。
+     * 正数 float 的位模式与数值同序，排序后同一 id 的最后一个即最高分
+     */
+    private static final class PairBuffer {
+
+        private long[] pairs = new long[64];
+
+        private int size;
+
+        void add(int bookId, float score) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size << 1);
+            }
+            pairs[size++] = ((long) bookId << 32) | (Float.floatToIntBits(score) & 0xFFFFFFFFL);
+        }
+
+        Matches toMatches() {
+            Arrays.sort(pairs, 0, size);
+            int[] ids = new int[size];
+            float[] scores = new float[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int id = (int) (pairs[i] >>> 32);
+                if (i + 1 < size && (int) (pairs[i + 1] >>> 32) == id) {
+                    continue;
+                }
+                ids[count] = id;
+                scores[count] = Float.intBitsToFloat((int) pairs[i]);
+                count++;
+            }
+            return new Matches(ids, scores, count);
+        }
+    }
+
+    // 按 id 升序排列的命中结果
+    private record Matches(int[] ids, float[] scores, int size) {
+
+        // 只保留 postings 中的图书，两边都按 id 升序
+        Matches retain(IntPostings postings) {
+            int[] resultIds = new int[size];
+            float[] resultScores = new float[size];
+            int count = 0;
+            int j = 0;
+            for (int i = 0; i < size && j < postings.size(); i++) {
+                while (j < postings.size() && postings.get(j) < ids[i]) {
+                    j++;
+                }
+                if (j < postings.size() && postings.get(j) == ids[i]) {
+                    resultIds[count] = ids[i];
+                    resultScores[count] = scores[i];
+                    count++;
+                }
+            }
+            return new Matches(resultIds, resultScores, count);
+        }
+
+        Matches intersect(Matches other) {
+            int[] resultIds = new int[Math.min(size, other.size)];
+            float[] resultScores = new float[resultIds.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                int a = ids[i];
+                int b = other.ids[j];
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    resultIds[count] = a;
+                    resultScores[count] = scores[i] + other.scores[j];
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return new Matches(resultIds, resultScores, count);
+        }
+
+        // 高 32 位得分、低 32 位 (MAX - id)，升序排序后从尾部取即为得分降序、id 升序
+        List<Hit> top(int limit) {
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) Float.floatToIntBits(scores[i]) << 32) | (Integer.MAX_VALUE - ids[i]);
+            }
+            Arrays.sort(keys);
+            int count = Math.min(limit, size);
+            List<Hit> hits = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) {
+                hits.add(new Hit(
+                        Integer.MAX_VALUE - (int) keys[i],
+                        Float.intBitsToFloat((int) (keys[i] >>> 32))
+                ));
+            }
+            return hits;
+        }
+    }
+
+    public record Hit(int bookId, float score) {
+    }
+
+    public record Stats(int books, int authors, int nameTerms, int authorTerms) {
+    }
+}
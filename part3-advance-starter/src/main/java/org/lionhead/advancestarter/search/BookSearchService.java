@@ -0,0 +1,279 @@
+package org.lionhead.advancestarter.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.ImmutableObjects;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.config.SearchProperties;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.AuthorProps;
+import org.lionhead.advancestarter.entity.AuthorTable;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 图书全文检索
+ * 1. 应用就绪后流式读取 author、book 建立 BookSearchIndex，代替 LIKE '%x%' 的全表扫描
+ * 2. 通过 JSqlClient 保存、删除 Book / Author 或修改 Book.authors 时，记录受影响的 id，
+ *    事务提交后重新加载这些对象更新索引（回滚的修改不会进入索引）
+ * 3. 建索引和增量更新都在同一个单线程中按顺序执行，启动期间的修改排在全量建索引之后
+ * 绕过 JSqlClient 的写入（COPY + MERGE、手写 SQL）不会触发事件，需要调用 markBooks / markAll，
+ * 同样在事务提交后更新
+ */
+@Service
+@ConditionalOnProperty(prefix = "lionhead.search", name = "enabled", havingValue = "true")
+public class BookSearchService implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchService.class);
+
+    // 搜索结果的形状
+    public static final BookFetcher SEARCH_FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name())
+            .authors(AuthorFetcher.$.firstName().lastName());
+
+    private static final BookFetcher INDEX_BOOK_FETCHER = BookFetcher.$.name().tenant().authors();
+
+    private static final AuthorFetcher INDEX_AUTHOR_FETCHER = AuthorFetcher.$.firstName().lastName();
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private SearchProperties properties;
+
+    private final Object pendingKey = new Object();
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("book-search-index").daemon().factory()
+    );
+
+    private BookSearchIndex index;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        index = new BookSearchIndex(properties.getNameWeight(), properties.getAuthorWeight());
+        sqlClient.getTriggers().addEntityListener(Book.class, e -> {
+            if (e.getOldEntity() == null || e.getNewEntity() == null
+                    || e.isChanged(BookProps.NAME) || e.isChanged(BookProps.TENANT)) {
+                mark(it -> it.bookIds.add((Integer) e.getId()));
+            }
+        });
+        sqlClient.getTriggers().addEntityListener(Author.class, e -> {
+            if (e.getOldEntity() == null || e.getNewEntity() == null
+                    || e.isChanged(AuthorProps.FIRST_NAME) || e.isChanged(AuthorProps.LAST_NAME)) {
+                mark(it -> it.authorIds.add((Integer) e.getId()));
+            }
+        });
+        // Author.books 的变化 Jimmer 会同时以 Book.authors 的事件通知，只监听一侧
+        sqlClient.getTriggers().addAssociationListener(BookProps.AUTHORS, e ->
+                mark(it -> it.bookIds.add((Integer) e.getSourceId()))
+        );
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        updater.execute(this::build);
+    }
+
+    @PreDestroy
+    public void close() {
+        updater.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public BookSearchIndex.Stats stats() {
+        return index.stats();
+    }
+
+    /**
+     * 标记名称、租户或作者发生变化的图书，事务提交后重新加载（没有事务时立即执行）
+     */
+    public void markBooks(Collection<Integer> bookIds) {
+        if (!bookIds.isEmpty()) {
+            mark(it -> it.bookIds.addAll(bookIds));
+        }
+    }
+
+    /**
+     * 受影响的图书太多、无法逐个标记时，事务提交后重建整个索引
+     */
+    public void markAll() {
+        mark(it -> it.rebuild = true);
+    }
+
+    /**
+     * 当前租户按相关度排序的图书，没有租户时不返回任何数据，ADMIN 搜索全部租户
+     */
+    public List<Book> search(String query, int limit) {
+        String tenant = TenantContext.get();
+        if (tenant == null) {
+            return List.of();
+        }
+        List<BookSearchIndex.Hit> hits = index.search(query, TenantContext.isAdmin() ? null : tenant, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (BookSearchIndex.Hit hit : hits) {
+            ids.add(hit.bookId());
+        }
+        Map<Integer, Book> bookMap = sqlClient.findMapByIds(SEARCH_FETCHER, ids);
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Book book = bookMap.get(id);
+            // 索引异步更新，可能已被删除
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    // 索引覆盖全部租户，以 ADMIN 身份读取
+    private void build() {
+        long start = System.nanoTime();
+        int fetchSize = properties.getFetchSize();
+        index.clear();
+        try {
+            TenantContext.call(TenantContext.ADMIN, () -> sqlClient.transaction(() -> {
+                AuthorTable author = AuthorTable.$;
+                sqlClient.createQuery(author)
+                        .orderBy(author.id())
+                        .select(author.fetch(INDEX_AUTHOR_FETCHER))
+                        .forEach(fetchSize, it -> index.putAuthor(it.id(), it.firstName(), it.lastName()));
+                BookTable book = BookTable.$;
+                // 按 id 顺序读取，倒排列表只在末尾追加
+                sqlClient.createQuery(book)
+                        .orderBy(book.id())
+                        .select(book.fetch(INDEX_BOOK_FETCHER))
+                        .forEach(fetchSize, it -> index.putBook(it.id(), it.tenant(), it.name(), authorIds(it)));
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            logger.error("Cannot build book search index", e);
+            return;
+        }
+        index.trimToSize();
+        ready = true;
+        logger.info("Book search index built in {} ms: {}", (System.nanoTime() - start) / 1_000_000, index.stats());
+    }
+
+    private void apply(Pending pending) {
+        if (pending.rebuild) {
+            // 重建期间索引不完整
+            ready = false;
+            build();
+            return;
+        }
+        TenantContext.call(TenantContext.ADMIN, () -> {
+            applyAsAdmin(pending);
+            return null;
+        });
+    }
+
+    private void applyAsAdmin(Pending pending) {
+        try {
+            if (!pending.authorIds.isEmpty()) {
+                Map<Integer, Author> authorMap = sqlClient.findMapByIds(INDEX_AUTHOR_FETCHER, pending.authorIds);
+                for (Integer id : pending.authorIds) {
+                    Author author = authorMap.get(id);
+                    if (author != null) {
+                        index.putAuthor(id, author.firstName(), author.lastName());
+                    } else {
+                        index.removeAuthor(id);
+                    }
+                }
+            }
+            if (!pending.bookIds.isEmpty()) {
+                Map<Integer, Book> bookMap = sqlClient.findMapByIds(INDEX_BOOK_FETCHER, pending.bookIds);
+                for (Integer id : pending.bookIds) {
+                    Book book = bookMap.get(id);
+                    if (book != null) {
+                        index.putBook(id, book.tenant(), book.name(), authorIds(book));
+                    } else {
+                        index.removeBook(id);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Cannot update book search index, books: {}, authors: {}", pending.bookIds, pending.authorIds, e);
+        }
+    }
+
+    private static int[] authorIds(Book book) {
+        if (!ImmutableObjects.isLoaded(book, BookProps.AUTHORS)) {
+            return new int[0];
+        }
+        List<Author> authors = book.authors();
+        int[] ids = new int[authors.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = authors.get(i).id();
+        }
+        return ids;
+    }
+
+    // 同一个事务中的修改合并成一次更新，提交后才执行；没有事务时立即执行
+    private void mark(Consumer<Pending> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = new Pending();
+            change.accept(pending);
+            updater.execute(() -> apply(pending));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(pendingKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                    if (status == STATUS_COMMITTED) {
+                        updater.execute(() -> apply(created));
+                    }
+                }
+            });
+            pending = created;
+        }
+        change.accept(pending);
+    }
+
+    private static class Pending {
+
+        final Set<Integer> bookIds = new HashSet<>();
+
+        final Set<Integer> authorIds = new HashSet<>();
+
+        // 全量重建，覆盖 bookIds 和 authorIds
+        boolean rebuild;
+    }
+}
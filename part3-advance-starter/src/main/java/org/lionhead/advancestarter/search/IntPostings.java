@@ -0,0 +1,60 @@
+package org.lionhead.advancestarter.search;
+
+import java.util.Arrays;
+
+/**
+ * 有序、去重的 int 倒排列表，直接存在 int[] 中，不装箱
+ * 按 id 递增追加（全量建索引）时为 O(1)，增量更新时二分查找后移动数组
+ */
+final class IntPostings {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+
+    private int size;
+
+    boolean add(int id) {
+        int index = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+        return true;
+    }
+
+    boolean remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // 全量建索引后收缩多余的容量
+    void trimToSize() {
+        if (ids.length != size) {
+            ids = size == 0 ? EMPTY : Arrays.copyOf(ids, size);
+        }
+    }
+}
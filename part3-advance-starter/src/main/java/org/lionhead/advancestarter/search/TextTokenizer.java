@@ -0,0 +1,64 @@
+package org.lionhead.advancestarter.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 建索引和查询共用的分词规则
+ * 1. 字母、数字的连续片段为一个词，统一转小写
+ * 2. 汉字没有分隔符，连续的汉字按二元组切分（“数据结构” -> 数据、据结、结构），单个汉字保留为一个词
+ * 3. 其他字符都是分隔符
+ */
+final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        List<Integer> han = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN) {
+                flushWord(word, tokens);
+                han.add(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushHan(han, tokens);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, tokens);
+                flushHan(han, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushHan(han, tokens);
+        return new ArrayList<>(tokens);
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> tokens) {
+        if (!word.isEmpty()) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+
+    private static void flushHan(List<Integer> han, Set<String> tokens) {
+        if (han.size() == 1) {
+            tokens.add(Character.toString(han.get(0)));
+        } else {
+            for (int i = 0; i + 1 < han.size(); i++) {
+                tokens.add(new StringBuilder(4).appendCodePoint(han.get(i)).appendCodePoint(han.get(i + 1)).toString());
+            }
+        }
+        han.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.ast.Expression;
+import org.babyfish.jimmer.sql.ast.mutation.SaveMode;
+import org.babyfish.jimmer.sql.ast.tuple.Tuple2;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 作者批量导入
+ * 请求体按 JSON 数组流式解析，每攒满一个分块就调用一次 saveEntitiesCommand，
+ * 内存中最多只保留一个分块的作者，与请求体大小无关
+ */
+@Service
+public class AuthorBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorBatchService.class);
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    public List<ChunkResult> importAuthors(InputStream body, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        List<ChunkResult> results = new ArrayList<>();
+        // 这里的 ObjectMapper 是 Spring 容器中的，已经注册了 Jimmer 的 ImmutableModule，可以直接反序列化 Author
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("request body must be a JSON array of authors");
+            }
+            List<Author> chunk = new ArrayList<>(chunkSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, Author.class));
+                if (chunk.size() == chunkSize) {
+                    results.add(saveChunk(results.size(), chunk));
+                    // 复用同一个 List，保存完立即清空，保证内存占用平稳
+                    chunk.clear();
+                }
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("unexpected token in author array: " + token);
+            }
+            if (!chunk.isEmpty()) {
+                results.add(saveChunk(results.size(), chunk));
+            }
+        }
+        return results;
+    }
+
+    private ChunkResult saveChunk(int index, List<Author> chunk) {
+        try {
+            // 每个分块一个事务：某个分块失败只回滚该分块，不影响已经保存的分块
+            List<Author> authors = deduplicate(chunk);
+            return sqlClient.transaction(() -> {
+                Set<Tuple2<String, String>> existingKeys = findExistingKeys(authors);
+                // 同一分块内的作者由 saveEntitiesCommand 合并为 JDBC 批量语句执行，而不是逐条 INSERT
+                sqlClient.getEntities()
+                        .saveEntitiesCommand(authors)
+                        .setMode(SaveMode.UPSERT)
+                        .execute();
+                int updated = 0;
+                for (Author author : authors) {
+                    if (existingKeys.contains(new Tuple2<>(author.firstName(), author.lastName()))) {
+                        updated++;
+                    }
+                }
+                return new ChunkResult(index, authors.size() - updated, updated, 0, null);
+            });
+        } catch (RuntimeException e) {
+            logger.error("save author chunk {} failed, size: {}, msg: {}", index, chunk.size(), e.getMessage(), e);
+            return new ChunkResult(index, 0, 0, chunk.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 同一分块中 Key（firstName, lastName）重复时只保留最后一个，与逐条 UPSERT 的最终结果一致；
+     * 否则同一条 ON CONFLICT 语句会两次更新同一行而被 PostgreSQL 拒绝，统计数量也会重复计算
+     */
+    static List<Author> deduplicate(List<Author> chunk) {
+        Map<Tuple2<String, String>, Author> authorMap = new LinkedHashMap<>();
+        for (Author author : chunk) {
+            Tuple2<String, String> key = new Tuple2<>(author.firstName(), author.lastName());
+            // 先删除再放入，使最后一次出现的位置决定顺序
+            authorMap.remove(key);
+            authorMap.put(key, author);
+        }
+        return new ArrayList<>(authorMap.values());
+    }
+
+    // 一条 SQL 查出该分块中已存在的 Key，用于区分 INSERT 和 UPDATE 的数量
+    private Set<Tuple2<String, String>> findExistingKeys(List<Author> chunk) {
+        List<Tuple2<String, String>> keys = new ArrayList<>(chunk.size());
+        for (Author author : chunk) {
+            keys.add(new Tuple2<>(author.firstName(), author.lastName()));
+        }
+        AuthorTable table = AuthorTable.$;
+        return new HashSet<>(
+                sqlClient.createQuery(table)
+                        .where(Expression.tuple(table.firstName(), table.lastName()).in(keys))
+                        .select(table.firstName(), table.lastName())
+                        .execute()
+        );
+    }
+
+    /**
+     * 单个分块的保存结果
+     *
+     * @param index    分块序号，从 0 开始
+     * @param inserted 新增数量（同一分块中重复的 Key 只计一次）
+     * @param updated  更新数量（同一分块中重复的 Key 只计一次）
+     * @param failed   失败数量，分块失败时整个分块回滚，等于分块大小
+     * @param error    失败原因
+     */
+    public record ChunkResult(int index, int inserted, int updated, int failed, String error) {
+    }
+}
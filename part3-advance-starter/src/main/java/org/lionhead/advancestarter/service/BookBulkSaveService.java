@@ -0,0 +1,491 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.ImmutableObjects;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.runtime.ExecutionException;
+import org.babyfish.jimmer.sql.transaction.Propagation;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+import org.lionhead.advancestarter.entity.BookStoreTable;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.search.BookSearchService;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 PostgreSQL COPY 的 Book 批量 UPSERT
+ * complexSave 中的 saveEntitiesCommand 在 UPSERT / INSERT_IF_ABSENT 模式下，需要先按 Key 查询再批量 INSERT / UPDATE，
+ * 数据量到百万级时语句数量和参数绑定开销都很可观。这里：
+ * 1. 用 COPY ... FROM STDIN 把数据流式写入临时表（事务提交时自动删除）
+ * 2. 一条 INSERT ... ON CONFLICT (name, edition) DO UPDATE 合并到 book 表，RETURNING 区分新增和更新
+ * 只支持扁平的 Book：标量属性 + bookStore 的 id，不级联保存关联对象。
+ * Key (name, edition) 在所有租户之间唯一，只允许更新同一租户的行；只能写入当前租户的图书，
+ * 没有租户时拒绝，只有 TenantContext.ADMIN 可以写入多个租户，
+ * 任何一行的 Key 已被其他租户占用时整批回滚。
+ * 该方式绕过了 Jimmer 的保存指令，所以需要自己清理受影响的二级缓存，且在事务提交之后清理；
+ * 受影响的 id 超过 MAX_EVICT_IDS 后不再记录，提交后分批读出当前租户全部图书和全部书店的 id 清理，
+ * 流式导入的内存占用不随行数增长。
+ * 同样不会触发 Jimmer 的事件，新增的图书由这里通知 BookSearchService（更新只修改价格和书店，不影响检索索引），
+ * 超过 MAX_EVICT_IDS 时改为提交后重建索引
+ */
+@Service
+public class BookBulkSaveService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // 逐个记录待清理缓存的 id 的上限
+    private static final int MAX_EVICT_IDS = 10_000;
+
+    // 全量清理时每次读取、清理的 id 数量
+    private static final int EVICT_CHUNK_SIZE = 1000;
+
+    private static final String CREATE_STAGING_SQL =
+            "create temp table if not exists book_staging (" +
+                    "seq int not null, " +
+                    "name varchar(50) not null, " +
+                    "edition int not null, " +
+                    "price numeric(10, 2) not null, " +
+                    "tenant varchar(20) not null, " +
+                    "store_id int, " +
+                    "created_time timestamp not null, " +
+                    "modified_time timestamp not null" +
+                    ") on commit drop";
+
+    private static final String COPY_SQL =
+            "copy book_staging (seq, name, edition, price, tenant, store_id, created_time, modified_time) " +
+                    "from stdin (format csv)";
+
+    // 同一批数据中 Key 重复时保留最后一条，否则 ON CONFLICT 会因为同一行被更新两次而报错；
+    // old 在 upsert 之前的快照上查询，用于清理原所属书店的关联缓存
+    private static final String MERGE_SQL =
+            "with src as (" +
+                    "select distinct on (name, edition) * from book_staging order by name, edition, seq desc" +
+                    "), old as (" +
+                    "select b.name, b.edition, b.store_id from book b inner join src s " +
+                    "on b.name = s.name and b.edition = s.edition" +
+                    "), up as (" +
+                    "insert into book (name, edition, price, tenant, store_id, created_time, modified_time) " +
+                    "select name, edition, price, tenant, store_id, created_time, modified_time from src " +
+                    "on conflict (name, edition) do update set " +
+                    "price = excluded.price, " +
+                    "store_id = excluded.store_id, " +
+                    "modified_time = excluded.modified_time " +
+                    // 其他租户的行不更新，也不会出现在 RETURNING 中
+                    "where book.tenant = excluded.tenant " +
+                    "returning id, name, edition, store_id, (xmax = 0) as inserted" +
+                    ") select up.id, up.name, up.edition, up.inserted, up.store_id, old.store_id " +
+                    "from up left join old on up.name = old.name and up.edition = old.edition";
+
+    private static final String STAGED_KEY_COUNT_SQL =
+            "select count(*) from (select distinct name, edition from book_staging) k";
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    // 检索功能可以关闭
+    @Resource
+    private ObjectProvider<BookSearchService> searchServices;
+
+    public BulkSaveResult bulkUpsert(Collection<Book> books) {
+        return bulkUpsert(sqlClient, books, searchServices.getIfAvailable());
+    }
+
+    /**
+     * 请求体按 JSON 数组流式解析，每解析出一本书就写入 COPY，内存占用与请求体大小无关；
+     * 因此结果中不回传实体，modifiedEntities 为空
+     */
+    public BulkSaveResult bulkUpsert(InputStream body) throws IOException {
+        // Spring 容器中的 ObjectMapper 已经注册了 Jimmer 的 ImmutableModule，可以直接反序列化 Book
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("request body must be a JSON array of books");
+            }
+            BookSource source = () -> {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("unexpected token in book array: " + token);
+                }
+                return objectMapper.readValue(parser, Book.class);
+            };
+            MergeResult merged = merge(sqlClient, source, false, searchServices.getIfAvailable());
+            return new BulkSaveResult(List.of(), merged.inserted + merged.updated, merged.inserted, merged.updated);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 不经过 Spring 容器调用时（如基准测试）没有检索索引需要更新
+    public static BulkSaveResult bulkUpsert(JSqlClient sqlClient, Collection<Book> books) {
+        return bulkUpsert(sqlClient, books, null);
+    }
+
+    private static BulkSaveResult bulkUpsert(
+            JSqlClient sqlClient,
+            Collection<Book> books,
+            BookSearchService searchService
+    ) {
+        if (books.isEmpty()) {
+            return new BulkSaveResult(List.of(), 0, 0, 0);
+        }
+        Iterator<Book> itr = books.iterator();
+        MergeResult merged = merge(sqlClient, () -> itr.hasNext() ? itr.next() : null, true, searchService);
+        List<Book> modifiedEntities = new ArrayList<>(books.size());
+        for (Book book : books) {
+            Integer id = merged.idMap.get(new BookKey(book.name(), book.edition()));
+            modifiedEntities.add(BookDraft.$.produce(book, draft -> draft.setId(id)));
+        }
+        return new BulkSaveResult(
+                modifiedEntities,
+                merged.inserted + merged.updated,
+                merged.inserted,
+                merged.updated
+        );
+    }
+
+    private static MergeResult merge(
+            JSqlClient sqlClient,
+            BookSource source,
+            boolean collectIds,
+            BookSearchService searchService
+    ) {
+        String tenant = TenantContext.get();
+        MergeResult merged = sqlClient.transaction(() ->
+                sqlClient.getConnectionManager().execute(con -> {
+                    try {
+                        return copyAndMerge(con, source, tenant, collectIds);
+                    } catch (SQLException e) {
+                        throw new ExecutionException("Cannot bulk upsert books", e);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+        );
+        evictCachesAfterCommit(sqlClient, merged, tenant);
+        if (searchService != null) {
+            if (merged.searchOverflow) {
+                searchService.markAll();
+            } else {
+                searchService.markBooks(merged.insertedIds);
+            }
+        }
+        return merged;
+    }
+
+    private static void validate(Book book, String tenant) {
+        if (!ImmutableObjects.isLoaded(book, BookProps.NAME)
+                || !ImmutableObjects.isLoaded(book, BookProps.EDITION)) {
+            throw new IllegalArgumentException("Bulk upsert requires the key properties name and edition");
+        }
+        if (!ImmutableObjects.isLoaded(book, BookProps.PRICE)
+                || !ImmutableObjects.isLoaded(book, BookProps.TENANT)) {
+            throw new IllegalArgumentException("Bulk upsert requires price and tenant");
+        }
+        if (tenant == null) {
+            throw new IllegalArgumentException("Bulk upsert requires a tenant");
+        }
+        if (!TenantContext.ADMIN.equals(tenant) && !tenant.equals(book.tenant())) {
+            throw new IllegalArgumentException("Bulk upsert cannot write books of another tenant");
+        }
+        if (ImmutableObjects.isLoaded(book, BookProps.AUTHORS)) {
+            throw new IllegalArgumentException("Bulk upsert does not save Book.authors");
+        }
+        if (ImmutableObjects.isLoaded(book, BookProps.BOOK_STORE)) {
+            BookStore store = book.bookStore();
+            if (store != null && !ImmutableObjects.isIdOnly(store)) {
+                throw new IllegalArgumentException("Bulk upsert only accepts id-only Book.bookStore");
+            }
+        }
+    }
+
+    private static MergeResult copyAndMerge(
+            Connection con,
+            BookSource source,
+            String tenant,
+            boolean collectIds
+    ) throws SQLException, IOException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute(CREATE_STAGING_SQL);
+            // 同一个事务中多次调用时临时表还在，先清空
+            stmt.execute("truncate book_staging");
+        }
+        CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_SIZE + 1024);
+            StringBuilder line = new StringBuilder(128);
+            int seq = 0;
+            Book book;
+            while ((book = source.next()) != null) {
+                validate(book, tenant);
+                line.setLength(0);
+                appendRow(line, seq++, book, now);
+                buffer.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+                // 攒满一块再写入，数据边读边发，不在内存中拼出整个 COPY 数据
+                if (buffer.size() >= COPY_BUFFER_SIZE) {
+                    copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                    buffer.reset();
+                }
+            }
+            if (buffer.size() > 0) {
+                copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        MergeResult result = new MergeResult();
+        try (PreparedStatement stmt = con.prepareStatement(MERGE_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (collectIds) {
+                    result.idMap.put(new BookKey(rs.getString(2), rs.getInt(3)), id);
+                }
+                if (rs.getBoolean(4)) {
+                    result.inserted++;
+                    result.addInsertedId(id);
+                } else {
+                    result.updated++;
+                    result.addEvictKey(result.updatedIds, id);
+                }
+                int newStoreId = rs.getInt(5);
+                if (!rs.wasNull()) {
+                    result.addEvictKey(result.storeIds, newStoreId);
+                }
+                int oldStoreId = rs.getInt(6);
+                if (!rs.wasNull()) {
+                    result.addEvictKey(result.storeIds, oldStoreId);
+                }
+            }
+        }
+        // 没有出现在 RETURNING 中的 Key 属于其他租户，抛出异常使整批回滚
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery(STAGED_KEY_COUNT_SQL)) {
+            rs.next();
+            if (rs.getLong(1) != result.inserted + result.updated) {
+                throw new IllegalArgumentException("Bulk upsert contains keys that belong to another tenant");
+            }
+        }
+        return result;
+    }
+
+    private static void appendRow(StringBuilder line, int seq, Book book, LocalDateTime now) {
+        BookStore store = ImmutableObjects.isLoaded(book, BookProps.BOOK_STORE) ? book.bookStore() : null;
+        LocalDateTime createdTime = ImmutableObjects.isLoaded(book, BookProps.CREATED_TIME) && book.createdTime() != null
+                ? book.createdTime()
+                : now;
+        LocalDateTime modifiedTime = ImmutableObjects.isLoaded(book, BookProps.MODIFIED_TIME) && book.modifiedTime() != null
+                ? book.modifiedTime()
+                : now;
+        line.append(seq).append(',');
+        appendText(line, book.name());
+        line.append(',').append(book.edition())
+                .append(',').append(book.price())
+                .append(',');
+        appendText(line, book.tenant());
+        line.append(',');
+        if (store != null) {
+            line.append(store.id());
+        }
+        line.append(',').append(createdTime)
+                .append(',').append(modifiedTime)
+                .append('\n');
+    }
+
+    // CSV 格式：字符串统一加引号，内部引号转义为两个引号；不加引号的空值表示 NULL
+    private static void appendText(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // 在外层事务中调用时，提交之前清理缓存会让其他线程把旧数据重新加载进缓存，所以等到提交之后再清理
+    private static void evictCachesAfterCommit(JSqlClient sqlClient, MergeResult merged, String tenant) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictCaches(sqlClient, merged, tenant);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictCaches(sqlClient, merged, tenant);
+            }
+        });
+    }
+
+    private static void evictCaches(JSqlClient sqlClient, MergeResult merged, String tenant) {
+        if (merged.overflow) {
+            evictAll(sqlClient, tenant);
+            return;
+        }
+        evictBooks(sqlClient, merged.updatedIds);
+        evictStores(sqlClient, merged.storeIds);
+    }
+
+    /**
+     * 按租户过滤器分批读出当前租户（ADMIN 为全部租户）的图书 id 以及全部书店 id 并清理，
+     * 每次只在内存中保留一批；afterCommit 中原事务的连接仍然绑定在线程上，需要新开事务读取
+     */
+    private static void evictAll(JSqlClient sqlClient, String tenant) {
+        TenantContext.call(tenant, () -> sqlClient.transaction(Propagation.REQUIRES_NEW, () -> {
+            List<Object> ids = new ArrayList<>(EVICT_CHUNK_SIZE);
+            BookTable book = BookTable.$;
+            sqlClient.createQuery(book)
+                    .select(book.id())
+                    .forEach(EVICT_CHUNK_SIZE, id -> {
+                        ids.add(id);
+                        if (ids.size() == EVICT_CHUNK_SIZE) {
+                            evictBooks(sqlClient, ids);
+                            ids.clear();
+                        }
+                    });
+            evictBooks(sqlClient, ids);
+            ids.clear();
+            BookStoreTable store = BookStoreTable.$;
+            sqlClient.createQuery(store)
+                    .select(store.id())
+                    .forEach(EVICT_CHUNK_SIZE, id -> {
+                        ids.add(id);
+                        if (ids.size() == EVICT_CHUNK_SIZE) {
+                            evictStores(sqlClient, ids);
+                            ids.clear();
+                        }
+                    });
+            evictStores(sqlClient, ids);
+            return null;
+        }));
+    }
+
+    private static void evictBooks(JSqlClient sqlClient, Collection<Object> bookIds) {
+        evict(sqlClient.getCaches().getObjectCache(Book.class), bookIds);
+        evict(sqlClient.getCaches().getPropertyCache(BookProps.BOOK_STORE), bookIds);
+    }
+
+    private static void evictStores(JSqlClient sqlClient, Collection<Object> storeIds) {
+        evict(sqlClient.getCaches().getPropertyCache(BookStoreProps.BOOKS), storeIds);
+        evict(sqlClient.getCaches().getPropertyCache(BookStoreProps.BOOK_COUNT), storeIds);
+        evict(sqlClient.getCaches().getPropertyCache(BookStoreProps.AVG_PRICE), storeIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void evict(Cache<?, ?> cache, Collection<Object> keys) {
+        if (cache != null && !keys.isEmpty()) {
+            ((Cache<Object, ?>) cache).deleteAll(new ArrayList<>(keys));
+        }
+    }
+
+    // 逐本读取待保存的图书，读完返回 null
+    @FunctionalInterface
+    private interface BookSource {
+        Book next() throws IOException;
+    }
+
+    private record BookKey(String name, int edition) {
+    }
+
+    private static class MergeResult {
+
+        final Map<BookKey, Integer> idMap = new HashMap<>();
+
+        final Set<Object> updatedIds = new HashSet<>();
+
+        final Set<Object> storeIds = new HashSet<>();
+
+        // 待清理的 id 超过上限，改为提交后全量清理
+        boolean overflow;
+
+        // 新增的图书，需要加入检索索引
+        final Set<Integer> insertedIds = new HashSet<>();
+
+        // 新增的图书超过上限，改为提交后重建检索索引
+        boolean searchOverflow;
+
+        int inserted;
+
+        int updated;
+
+        void addEvictKey(Set<Object> keys, Object key) {
+            if (overflow) {
+                return;
+            }
+            keys.add(key);
+            if (updatedIds.size() + storeIds.size() > MAX_EVICT_IDS) {
+                overflow = true;
+                updatedIds.clear();
+                storeIds.clear();
+            }
+        }
+
+        void addInsertedId(int id) {
+            if (searchOverflow) {
+                return;
+            }
+            insertedIds.add(id);
+            if (insertedIds.size() > MAX_EVICT_IDS) {
+                searchOverflow = true;
+                insertedIds.clear();
+            }
+        }
+    }
+
+    /**
+     * 与保存指令的结果对应
+     *
+     * @param modifiedEntities       与传入顺序一致，并设置了数据库中的 id
+     * @param totalAffectedRowCount  book 表受影响的行数
+     */
+    public record BulkSaveResult(
+            List<Book> modifiedEntities,
+            int totalAffectedRowCount,
+            int insertedCount,
+            int updatedCount
+    ) {
+    }
+}
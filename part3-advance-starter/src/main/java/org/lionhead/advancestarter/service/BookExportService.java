@@ -0,0 +1,105 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.config.BookExportProperties;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 图书全量导出（NDJSON，一行一本书）
+ * 不使用 execute() 一次性把 List<Book> 放进内存，而是用 forEach 流式读取：
+ * 1. PostgreSQL 只有在事务中（非自动提交）并设置了 fetch size 时才会使用服务端游标
+ * 2. forEach 每读满 fetchSize 行，就对这一批聚合根一次性批量加载 bookStore 和 authors
+ * 3. 每行写完即可被 GC，堆内存只与 fetchSize 有关
+ */
+@Service
+public class BookExportService {
+
+    // 与 complexFetcher 中的 fetcher2 形状一致
+    public static final BookFetcher EXPORT_FETCHER = BookFetcher.$.allScalarFields()
+            .bookStore(BookStoreFetcher.$.name())
+            .authors(AuthorFetcher.$.firstName().lastName());
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private BookExportProperties bookExportProperties;
+
+    /**
+     * 流式响应体在 MVC 的异步线程中执行，此时 TenantWebFilter 已经清除了租户，
+     * 所以在请求线程中取出租户，写出时重新绑定，否则租户过滤器不会返回任何数据
+     */
+    public StreamingResponseBody exportBody(int fetchSize) {
+        String tenant = TenantContext.get();
+        return out -> {
+            try {
+                TenantContext.call(tenant, () -> {
+                    try {
+                        exportBooks(out, fetchSize);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    public void exportBooks(OutputStream out, int fetchSize) throws IOException {
+        if (fetchSize <= 0 || fetchSize > bookExportProperties.getMaxFetchSize()) {
+            throw new IllegalArgumentException(
+                    "fetchSize must be between 1 and " + bookExportProperties.getMaxFetchSize()
+            );
+        }
+        // ObjectMapper.writeValue 默认每个对象写完都 flush，改为每个窗口 flush 一次
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // 不能让 Jackson 在写完一行后关闭响应流
+        try (JsonGenerator generator = objectMapper.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            BookTable table = BookTable.$;
+            sqlClient.transaction(() -> {
+                int[] written = {0};
+                sqlClient.createQuery(table)
+                        // 游标需要稳定的顺序，否则导出结果不可复现
+                        .orderBy(table.id())
+                        .select(table.fetch(EXPORT_FETCHER))
+                        .forEach(fetchSize, book -> {
+                            try {
+                                writer.writeValue(generator, book);
+                                generator.writeRaw('\n');
+                                // 每个窗口刷一次，让客户端尽早收到数据
+                                if (++written[0] % fetchSize == 0) {
+                                    generator.flush();
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                return null;
+            });
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.ast.query.ConfigurableRootQuery;
+import org.babyfish.jimmer.sql.ast.query.MutableRootQuery;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Book 游标（keyset / seek）分页
+ * 和 chainedJoinAndJoinType 中 fetchUnlimitedCount() + execute() 的方式相比：
+ * 1. 不查总数，每页只有一条 SQL
+ * 2. 用 where 排序键 > 上一页最后一行 代替 OFFSET，翻到再深的页也只扫描 size 行
+ * 多查一行用于判断是否还有下一页
+ */
+@Service
+public class BookKeysetService {
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    /**
+     * 使用对象抓取器分页，排序键会自动加入抓取器
+     */
+    public KeysetPage<Book> page(BookSortKey sortKey, String cursor, int size, BookFetcher fetcher) {
+        BookTable table = BookTable.$;
+        return page(
+                sortKey,
+                cursor,
+                size,
+                query -> query.select(table.fetch(sortKey.withKeys(fetcher))),
+                sortKey::keysOf
+        );
+    }
+
+    /**
+     * 通用分页，selector 中可以 select 任意 tuple 或抓取器，
+     * keyExtractor 负责从一行结果中取出排序键（顺序与 BookSortKey 一致）
+     */
+    public <R> KeysetPage<R> page(
+            BookSortKey sortKey,
+            String cursor,
+            int size,
+            Function<MutableRootQuery<BookTable>, ConfigurableRootQuery<BookTable, R>> selector,
+            Function<R, List<Object>> keyExtractor
+    ) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        BookTable table = BookTable.$;
+        MutableRootQuery<BookTable> query = sqlClient.createQuery(table);
+        if (cursor != null && !cursor.isEmpty()) {
+            query.where(sortKey.after(table, decodeCursor(objectMapper, sortKey, cursor)));
+        }
+        sortKey.orderBy(query, table);
+        List<R> rows = selector.apply(query)
+                .limit(size + 1)
+                .execute();
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<R> pageRows = rows.subList(0, size);
+        List<Object> lastKeys = keyExtractor.apply(pageRows.get(size - 1));
+        return new KeysetPage<>(pageRows, encodeCursor(objectMapper, sortKey, lastKeys));
+    }
+
+    // 游标对调用方是不透明的：排序方式 + 最后一行的排序键，JSON 后做 Base64URL
+    static String encodeCursor(ObjectMapper objectMapper, BookSortKey sortKey, List<Object> keys) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Cursor(sortKey, keys));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("failed to encode keyset cursor", e);
+        }
+    }
+
+    static List<Object> decodeCursor(ObjectMapper objectMapper, BookSortKey sortKey, String cursor) {
+        Cursor payload;
+        try {
+            payload = objectMapper.readValue(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8),
+                    Cursor.class
+            );
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("illegal cursor: " + cursor, e);
+        }
+        if (payload == null || payload.sort() != sortKey || payload.keys() == null || payload.keys().size() != 2) {
+            throw new IllegalArgumentException("cursor does not match sort key " + sortKey);
+        }
+        sortKey.checkKeys(payload.keys());
+        return payload.keys();
+    }
+
+    private record Cursor(BookSortKey sort, List<Object> keys) {
+    }
+}
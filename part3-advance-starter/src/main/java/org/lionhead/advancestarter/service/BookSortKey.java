@@ -0,0 +1,112 @@
+package org.lionhead.advancestarter.service;
+
+import org.babyfish.jimmer.sql.ast.Predicate;
+import org.babyfish.jimmer.sql.ast.query.MutableRootQuery;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookTable;
+
+import java.util.List;
+
+/**
+ * 游标分页支持的排序键
+ * 排序键必须能唯一确定一行，否则翻页时会丢数据或重复，所以 price 后面要跟上 id
+ * 建议配合联合索引使用：book(price, id)、book(name, edition)
+ */
+public enum BookSortKey {
+
+    PRICE_ID {
+        @Override
+        void orderBy(MutableRootQuery<BookTable> query, BookTable table) {
+            query.orderBy(table.price(), table.id());
+        }
+
+        // (price, id) > (?, ?) 展开为 price > ? or (price = ? and id > ?)
+        @Override
+        Predicate after(BookTable table, List<Object> keys) {
+            double price = ((Number) keys.get(0)).doubleValue();
+            int id = ((Number) keys.get(1)).intValue();
+            return Predicate.or(
+                    table.price().gt(price),
+                    Predicate.and(table.price().eq(price), table.id().gt(id))
+            );
+        }
+
+        @Override
+        void checkKeys(List<Object> keys) {
+            requireNumber(keys.get(0), "price");
+            requireInteger(keys.get(1), "id");
+        }
+
+        @Override
+        BookFetcher withKeys(BookFetcher fetcher) {
+            return fetcher.price();
+        }
+
+        @Override
+        List<Object> keysOf(Book book) {
+            return List.of(book.price(), book.id());
+        }
+    },
+
+    NAME_EDITION {
+        @Override
+        void orderBy(MutableRootQuery<BookTable> query, BookTable table) {
+            query.orderBy(table.name(), table.edition());
+        }
+
+        // (name, edition) 是 Book 的 Key，本身就唯一
+        @Override
+        Predicate after(BookTable table, List<Object> keys) {
+            String name = (String) keys.get(0);
+            int edition = ((Number) keys.get(1)).intValue();
+            return Predicate.or(
+                    table.name().gt(name),
+                    Predicate.and(table.name().eq(name), table.edition().gt(edition))
+            );
+        }
+
+        @Override
+        void checkKeys(List<Object> keys) {
+            if (!(keys.get(0) instanceof String)) {
+                throw new IllegalArgumentException("cursor key name must be a string");
+            }
+            requireInteger(keys.get(1), "edition");
+        }
+
+        @Override
+        BookFetcher withKeys(BookFetcher fetcher) {
+            return fetcher.name().edition();
+        }
+
+        @Override
+        List<Object> keysOf(Book book) {
+            return List.of(book.name(), book.edition());
+        }
+    };
+
+    abstract void orderBy(MutableRootQuery<BookTable> query, BookTable table);
+
+    abstract Predicate after(BookTable table, List<Object> keys);
+
+    // 游标来自客户端，解码后先校验类型，非法时抛 IllegalArgumentException（返回 400），而不是在 after 中 ClassCastException
+    abstract void checkKeys(List<Object> keys);
+
+    // 使用对象抓取器时，排序键必须被抓取，才能从最后一行生成下一页游标
+    abstract BookFetcher withKeys(BookFetcher fetcher);
+
+    abstract List<Object> keysOf(Book book);
+
+    private static void requireNumber(Object value, String name) {
+        if (!(value instanceof Number number) || !Double.isFinite(number.doubleValue())) {
+            throw new IllegalArgumentException("cursor key " + name + " must be a finite number");
+        }
+    }
+
+    // JSON 中的整数反序列化为 Integer 或 Long，超出 int 范围的也不合法
+    private static void requireInteger(Object value, String name) {
+        if (!(value instanceof Integer) && !(value instanceof Long l && l == l.intValue())) {
+            throw new IllegalArgumentException("cursor key " + name + " must be an integer");
+        }
+    }
+}
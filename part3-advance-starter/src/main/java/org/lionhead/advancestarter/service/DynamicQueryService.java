@@ -0,0 +1,117 @@
+package org.lionhead.advancestarter.service;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookStore;
+import org.lionhead.advancestarter.entity.BookStoreDraft;
+import org.lionhead.advancestarter.entity.BookStoreTable;
+import org.lionhead.advancestarter.entity.BookTable;
+import org.lionhead.advancestarter.sqlcache.ShapeKey;
+import org.lionhead.advancestarter.sqlcache.SqlShapeCache;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * dynamicWhere / dynamicJoin 的服务化版本，通过 SqlShapeCache 复用渲染好的 SQL
+ */
+@Service
+public class DynamicQueryService {
+
+    public static final SqlShapeCache.RowMapper<BookStore> BOOK_STORE_MAPPER = rs ->
+            BookStoreDraft.$.produce(draft -> draft
+                    .setId(rs.getInt("id"))
+                    .setName(rs.getString("name"))
+                    .setWebsite(rs.getString("website"))
+                    .setCreatedTime(toLocalDateTime(rs.getTimestamp("created_time")))
+                    .setModifiedTime(toLocalDateTime(rs.getTimestamp("modified_time")))
+            );
+
+    public static final SqlShapeCache.RowMapper<Book> BOOK_MAPPER = rs -> {
+        int storeId = rs.getInt("store_id");
+        Integer nullableStoreId = rs.wasNull() ? null : storeId;
+        return BookDraft.$.produce(draft -> {
+            draft.setId(rs.getInt("id"))
+                    .setName(rs.getString("name"))
+                    .setEdition(rs.getInt("edition"))
+                    .setPrice(rs.getDouble("price"))
+                    .setTenant(rs.getString("tenant"))
+                    .setCreatedTime(toLocalDateTime(rs.getTimestamp("created_time")))
+                    .setModifiedTime(toLocalDateTime(rs.getTimestamp("modified_time")));
+            if (nullableStoreId != null) {
+                draft.applyBookStore(store -> store.setId(nullableStoreId));
+            } else {
+                draft.setBookStore(null);
+            }
+        });
+    };
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private SqlShapeCache sqlShapeCache;
+
+    // 对应 dynamicWhere：website、name 都是可选条件，最多 4 种形状
+    // 参数按 where 的顺序声明
+    public List<BookStore> searchBookStores(String website, String name) {
+        long mask = 0;
+        List<Object> values = new ArrayList<>(2);
+        if (hasText(website)) {
+            mask |= 1;
+            values.add(website);
+        }
+        if (hasText(name)) {
+            mask |= 2;
+            values.add(name);
+        }
+        BookStoreTable table = BookStoreTable.$;
+        return sqlShapeCache.query(
+                sqlClient,
+                new ShapeKey("bookStore.search", BookStore.class, mask),
+                values,
+                () -> sqlClient.createQuery(table)
+                        .where(table.website().eqIf(website))
+                        .where(table.name().eqIf(name))
+                        .select(table)
+                        .execute(),
+                BOOK_STORE_MAPPER
+        );
+    }
+
+    // 对应 dynamicJoin：bookStore.id 为空时连 join 都不会生成
+    // 租户过滤器追加的条件由 SqlShapeCache 按当前生效的过滤器参数区分，这里只声明自己的谓词
+    public List<Book> findBooksByStore(Integer bookStoreId) {
+        long mask = 0;
+        List<Object> values = new ArrayList<>(1);
+        if (bookStoreId != null) {
+            mask |= 1;
+            values.add(bookStoreId);
+        }
+        BookTable table = BookTable.$;
+        return sqlShapeCache.query(
+                sqlClient,
+                new ShapeKey("book.byStore", Book.class, mask),
+                values,
+                () -> sqlClient.createQuery(table)
+                        .where(table.bookStore().id().eqIf(bookStoreId))
+                        .select(table)
+                        .execute(),
+                BOOK_MAPPER
+        );
+    }
+
+    // 与 eqIf 的判断保持一致：null 和空字符串都视为条件不存在
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
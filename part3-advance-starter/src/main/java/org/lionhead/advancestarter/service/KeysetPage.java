@@ -0,0 +1,17 @@
+package org.lionhead.advancestarter.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ *
+ * @param rows       当前页数据
+ * @param nextCursor 下一页游标，为 null 表示没有下一页
+ */
+public record KeysetPage<R>(List<R> rows, String nextCursor) {
+
+    public <X> KeysetPage<X> map(Function<R, X> mapper) {
+        return new KeysetPage<>(rows.stream().map(mapper).toList(), nextCursor);
+    }
+}
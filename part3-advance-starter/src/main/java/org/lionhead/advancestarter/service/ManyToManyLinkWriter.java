@@ -0,0 +1,330 @@
+package org.lionhead.advancestarter.service;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.ImmutableObjects;
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.meta.TargetLevel;
+import org.babyfish.jimmer.meta.TypedProp;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.ManyToMany;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.fetcher.impl.FetcherImpl;
+import org.babyfish.jimmer.sql.meta.MiddleTable;
+import org.babyfish.jimmer.sql.runtime.ExecutionException;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.search.BookSearchService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 多对多中间表的集合化维护
+ * 以 REPLACE / MERGE 模式保存 Book.authors 时，Jimmer 会逐个聚合根比较中间表的差异，
+ * 作者列表很大时产生大量零碎的 DELETE / INSERT。这里对整批聚合根：
+ * 1. 把期望的 (源 id, 目标 id) 对作为两个数组参数传入，unnest 后去重，重复的输入天然幂等
+ * 2. 一条语句中用两个数据修改 CTE 完成差异计算：删除多余的关联（REPLACE）、插入缺少的关联
+ * 只维护中间表，不保存关联对象本身；适用于任何 @ManyToMany 属性（包括 mappedBy 一侧）
+ *
+ * 原生 SQL 不经过全局过滤器，所以写入前先通过 JSqlClient 按 id 查询两端的对象，
+ * 当前租户看不到的 id（其他租户的图书或不存在的对象）整批拒绝。
+ * REPLACE 会删除源对象的全部其他关联，目标类型有全局过滤器时无法判断被删除的关联是否可见，不支持。
+ * 缓存在事务提交之后清理；涉及 Book 的关联（Book.authors、Author.books）同时通知 BookSearchService 更新索引
+ */
+@Service
+public class ManyToManyLinkWriter {
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    // 检索功能可以关闭
+    @Resource
+    private ObjectProvider<BookSearchService> searchServices;
+
+    /**
+     * REPLACE：对 links 中出现的每个源对象，关联集合最终等于给定的目标 id 集合
+     */
+    public LinkResult replace(TypedProp.ReferenceList<?, ?> prop, Map<?, ? extends Collection<?>> links) {
+        return write(sqlClient, prop.unwrap(), links, true, searchServices.getIfAvailable());
+    }
+
+    /**
+     * MERGE：只补充缺少的关联，不删除已有关联
+     */
+    public LinkResult merge(TypedProp.ReferenceList<?, ?> prop, Map<?, ? extends Collection<?>> links) {
+        return write(sqlClient, prop.unwrap(), links, false, searchServices.getIfAvailable());
+    }
+
+    // 不经过 Spring 容器调用时（如基准测试）没有检索索引需要更新
+    public static LinkResult replace(
+            JSqlClient sqlClient,
+            TypedProp.ReferenceList<?, ?> prop,
+            Map<?, ? extends Collection<?>> links
+    ) {
+        return write(sqlClient, prop.unwrap(), links, true, null);
+    }
+
+    public static LinkResult merge(
+            JSqlClient sqlClient,
+            TypedProp.ReferenceList<?, ?> prop,
+            Map<?, ? extends Collection<?>> links
+    ) {
+        return write(sqlClient, prop.unwrap(), links, false, null);
+    }
+
+    private static LinkResult write(
+            JSqlClient sqlClient,
+            ImmutableProp prop,
+            Map<?, ? extends Collection<?>> links,
+            boolean replace,
+            BookSearchService searchService
+    ) {
+        if (links.isEmpty()) {
+            return new LinkResult(0, 0);
+        }
+        LinkTable linkTable = linkTable(sqlClient, prop);
+        if (replace && sqlClient.getFilters().getFilter(prop.getTargetType()) != null) {
+            throw new IllegalArgumentException(
+                    "Cannot replace " + prop + " because its target type has global filters"
+            );
+        }
+        List<Object> sourceIds = new ArrayList<>(links.size());
+        List<Object> pairSourceIds = new ArrayList<>();
+        List<Object> pairTargetIds = new ArrayList<>();
+        links.forEach((sourceId, targetIds) -> {
+            if (sourceId == null || targetIds == null) {
+                throw new IllegalArgumentException("Links of " + prop + " cannot contain null ids or null id lists");
+            }
+            sourceIds.add(sourceId);
+            for (Object targetId : targetIds) {
+                if (targetId == null) {
+                    throw new IllegalArgumentException("Links of " + prop + " cannot contain null ids");
+                }
+                pairSourceIds.add(sourceId);
+                pairTargetIds.add(targetId);
+            }
+        });
+        String sql = linkTable.sql(replace);
+        Changes changes = sqlClient.transaction(() -> {
+            requireVisible(sqlClient, prop.getDeclaringType(), sourceIds);
+            requireVisible(sqlClient, prop.getTargetType(), pairTargetIds);
+            return sqlClient.getConnectionManager().execute(con -> {
+                try (PreparedStatement stmt = con.prepareStatement(sql)) {
+                    stmt.setArray(1, array(con, linkTable.sourceIdType, pairSourceIds));
+                    stmt.setArray(2, array(con, linkTable.targetIdType, pairTargetIds));
+                    if (replace) {
+                        stmt.setArray(3, array(con, linkTable.sourceIdType, sourceIds));
+                    }
+                    Changes result = new Changes();
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if ("D".equals(rs.getString(1))) {
+                                result.deleted++;
+                            } else {
+                                result.inserted++;
+                            }
+                            result.sourceIds.add(rs.getObject(2));
+                            result.targetIds.add(rs.getObject(3));
+                        }
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    throw new ExecutionException("Cannot write links of " + prop, e);
+                }
+            });
+        });
+        evictCachesAfterCommit(sqlClient, prop, changes);
+        if (searchService != null) {
+            markBooks(searchService, prop, changes);
+        }
+        return new LinkResult(changes.inserted, changes.deleted);
+    }
+
+    // 通过 JSqlClient 查询，全局过滤器照常生效；禁用二级缓存，直接以数据库中的当前数据为准
+    private static void requireVisible(JSqlClient sqlClient, ImmutableType type, Collection<Object> ids) {
+        Set<Object> missing = new LinkedHashSet<>(ids);
+        if (missing.isEmpty()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Class<Object> javaClass = (Class<Object>) type.getJavaClass();
+        List<Object> visible = sqlClient
+                .caches(cfg -> cfg.disableAll())
+                .getEntities()
+                .findByIds(new FetcherImpl<>(javaClass), missing);
+        for (Object entity : visible) {
+            missing.remove(ImmutableObjects.get(entity, type.getIdProp()));
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException(
+                    type + " objects do not exist or belong to another tenant: " + missing
+            );
+        }
+    }
+
+    // 直接修改了中间表，需要清理两个方向的关联缓存；在外层事务中调用时等到提交之后再清理
+    private static void evictCachesAfterCommit(JSqlClient sqlClient, ImmutableProp prop, Changes changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictCaches(sqlClient, prop, changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictCaches(sqlClient, prop, changes);
+            }
+        });
+    }
+
+    private static void evictCaches(JSqlClient sqlClient, ImmutableProp prop, Changes changes) {
+        evict(sqlClient.getCaches().getPropertyCache(prop), changes.sourceIds);
+        ImmutableProp opposite = prop.getOpposite();
+        if (opposite != null) {
+            evict(sqlClient.getCaches().getPropertyCache(opposite), changes.targetIds);
+        }
+    }
+
+    // 索引中记录了图书的作者，Book 在哪一端就标记哪一端的 id
+    private static void markBooks(BookSearchService searchService, ImmutableProp prop, Changes changes) {
+        Set<Object> ids;
+        if (prop.getDeclaringType().getJavaClass() == Book.class) {
+            ids = changes.sourceIds;
+        } else if (prop.getTargetType().getJavaClass() == Book.class) {
+            ids = changes.targetIds;
+        } else {
+            return;
+        }
+        List<Integer> bookIds = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            bookIds.add((Integer) id);
+        }
+        searchService.markBooks(bookIds);
+    }
+
+    private static LinkTable linkTable(JSqlClient sqlClient, ImmutableProp prop) {
+        if (!prop.isReferenceList(TargetLevel.PERSISTENT) || !isManyToMany(prop)) {
+            throw new IllegalArgumentException(prop + " is not a many-to-many association");
+        }
+        // mappedBy 一侧没有中间表定义，使用对面属性的中间表并交换两列
+        boolean inverse = prop.getMappedBy() != null;
+        ImmutableProp owningProp = inverse ? prop.getMappedBy() : prop;
+        MiddleTable middleTable = owningProp.getStorage(
+                ((JSqlClientImplementor) sqlClient).getMetadataStrategy()
+        );
+        String ownerColumn = middleTable.getColumnDefinition().name(0);
+        String targetColumn = middleTable.getTargetColumnDefinition().name(0);
+        return new LinkTable(
+                middleTable.getTableName(),
+                inverse ? targetColumn : ownerColumn,
+                inverse ? ownerColumn : targetColumn,
+                sqlType(prop.getDeclaringType().getIdProp().getReturnClass()),
+                sqlType(prop.getTargetType().getIdProp().getReturnClass())
+        );
+    }
+
+    private static boolean isManyToMany(ImmutableProp prop) {
+        return prop.getAnnotation(ManyToMany.class) != null;
+    }
+
+    private static String sqlType(Class<?> idClass) {
+        if (idClass == int.class || idClass == Integer.class) {
+            return "int4";
+        }
+        if (idClass == long.class || idClass == Long.class) {
+            return "int8";
+        }
+        if (idClass == UUID.class) {
+            return "uuid";
+        }
+        if (idClass == String.class) {
+            return "text";
+        }
+        throw new IllegalArgumentException("Unsupported id type: " + idClass.getName());
+    }
+
+    private static Array array(Connection con, String type, List<Object> values) throws SQLException {
+        return con.createArrayOf(type, values.toArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void evict(Cache<?, ?> cache, Set<Object> keys) {
+        if (cache != null && !keys.isEmpty()) {
+            ((Cache<Object, ?>) cache).deleteAll(new ArrayList<>(keys));
+        }
+    }
+
+    private record LinkTable(
+            String tableName,
+            String sourceColumn,
+            String targetColumn,
+            String sourceIdType,
+            String targetIdType
+    ) {
+
+        // ? 1、2：期望的关联对（两个等长数组），? 3：本次涉及的源对象 id（仅 REPLACE）
+        String sql(boolean replace) {
+            String desired = "desired as (" +
+                    "select distinct s as source_id, t as target_id " +
+                    "from unnest(?::" + sourceIdType + "[], ?::" + targetIdType + "[]) as d(s, t)" +
+                    ")";
+            String inserted = "inserted as (" +
+                    "insert into " + tableName + " (" + sourceColumn + ", " + targetColumn + ") " +
+                    "select d.source_id, d.target_id from desired d " +
+                    "where not exists (" +
+                    "select 1 from " + tableName + " m " +
+                    "where m." + sourceColumn + " = d.source_id and m." + targetColumn + " = d.target_id" +
+                    ") on conflict do nothing " +
+                    "returning " + sourceColumn + ", " + targetColumn +
+                    ")";
+            if (!replace) {
+                return "with " + desired + ", " + inserted +
+                        " select 'I', " + sourceColumn + ", " + targetColumn + " from inserted";
+            }
+            String deleted = "deleted as (" +
+                    "delete from " + tableName + " m " +
+                    "where m." + sourceColumn + " = any(?::" + sourceIdType + "[]) " +
+                    "and not exists (" +
+                    "select 1 from desired d " +
+                    "where d.source_id = m." + sourceColumn + " and d.target_id = m." + targetColumn +
+                    ") returning m." + sourceColumn + ", m." + targetColumn +
+                    ")";
+            return "with " + desired + ", " + deleted + ", " + inserted +
+                    " select 'D', " + sourceColumn + ", " + targetColumn + " from deleted" +
+                    " union all select 'I', " + sourceColumn + ", " + targetColumn + " from inserted";
+        }
+    }
+
+    private static class Changes {
+
+        final Set<Object> sourceIds = new HashSet<>();
+
+        final Set<Object> targetIds = new HashSet<>();
+
+        int inserted;
+
+        int deleted;
+    }
+
+    /**
+     * @param inserted 新增的关联数量
+     * @param deleted  删除的关联数量
+     */
+    public record LinkResult(int inserted, int deleted) {
+    }
+}
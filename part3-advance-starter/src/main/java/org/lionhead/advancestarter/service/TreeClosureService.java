@@ -0,0 +1,286 @@
+package org.lionhead.advancestarter.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.event.EntityEvent;
+import org.lionhead.advancestarter.config.TreeProperties;
+import org.lionhead.advancestarter.entity.TreeNode;
+import org.lionhead.advancestarter.entity.TreeNodeFetcher;
+import org.lionhead.advancestarter.entity.TreeNodeProps;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于闭包表 tree_node_closure 的树形查询
+ * TreeService 的递归 CTE 每次都要沿 parent_id 逐层查找；闭包表预先存好所有 (祖先, 后代, 层数)，
+ * 子树、祖先、深度、是否在某节点下都只需要一次索引查找。
+ * 通过 JSqlClient 保存、删除 TreeNode 时，在事务触发器中用同一个连接维护闭包表；
+ * 手写 SQL 修改 parent_id 不会触发维护，可用 check / rebuild 检查和修复
+ */
+@Service
+@ConditionalOnProperty(prefix = "lionhead.tree", name = "closure-enabled", havingValue = "true")
+public class TreeClosureService {
+
+    private static final String INSERT_SELF_SQL =
+            "insert into tree_node_closure (ancestor_id, descendant_id, depth) values (?, ?, 0) " +
+                    "on conflict do nothing";
+
+    // 新的父节点在当前节点的子树中会形成环
+    private static final String CYCLE_SQL =
+            "select 1 from tree_node n inner join tree_node_closure c " +
+                    "on c.ancestor_id = ? and c.descendant_id = n.parent_id " +
+                    "where n.node_id = ?";
+
+    // 断开子树与原祖先之间的关系，子树内部的关系保持不变
+    private static final String DETACH_SQL =
+            "delete from tree_node_closure " +
+                    "where descendant_id in (select descendant_id from tree_node_closure where ancestor_id = ?) " +
+                    "and ancestor_id not in (select descendant_id from tree_node_closure where ancestor_id = ?)";
+
+    // 祖先沿 parent_id 查找而不是读父节点的闭包行：同一次保存中子节点的事件可能先于父节点处理
+    private static final String ATTACH_SQL =
+            "with recursive ancestors(node_id, parent_id, depth) as ( " +
+                    "select p.node_id, p.parent_id, 1 from tree_node n " +
+                    "inner join tree_node p on p.node_id = n.parent_id where n.node_id = ? " +
+                    "union all " +
+                    "select p.node_id, p.parent_id, a.depth + 1 from tree_node p " +
+                    "inner join ancestors a on p.node_id = a.parent_id where a.depth < ? " +
+                    ") insert into tree_node_closure (ancestor_id, descendant_id, depth) " +
+                    "select a.node_id, s.descendant_id, a.depth + s.depth " +
+                    "from ancestors a cross join tree_node_closure s where s.ancestor_id = ? " +
+                    "on conflict (ancestor_id, descendant_id) do update set depth = excluded.depth";
+
+    // 从 parent_id 推导出的完整闭包，用于校验和重建
+    private static final String EXPECTED_CTE =
+            "with recursive expected(ancestor_id, descendant_id, depth) as ( " +
+                    "select node_id, node_id, 0 from tree_node " +
+                    "union all " +
+                    "select e.ancestor_id, c.node_id, e.depth + 1 from expected e " +
+                    "inner join tree_node c on c.parent_id = e.descendant_id where e.depth < ? " +
+                    ") ";
+
+    private static final String CHECK_SQL =
+            EXPECTED_CTE +
+                    "select " +
+                    "(select count(*) from expected e where not exists (" +
+                    "select 1 from tree_node_closure c where c.ancestor_id = e.ancestor_id " +
+                    "and c.descendant_id = e.descendant_id and c.depth = e.depth)), " +
+                    "(select count(*) from tree_node_closure c where not exists (" +
+                    "select 1 from expected e where e.ancestor_id = c.ancestor_id " +
+                    "and e.descendant_id = c.descendant_id and e.depth = c.depth)), " +
+                    "(select count(*) from expected where depth >= ?)";
+
+    private static final String REBUILD_SQL =
+            EXPECTED_CTE +
+                    "insert into tree_node_closure (ancestor_id, descendant_id, depth) " +
+                    "select ancestor_id, descendant_id, min(depth) from expected group by ancestor_id, descendant_id";
+
+    private static final String DESCENDANTS_SQL =
+            "select descendant_id from tree_node_closure " +
+                    "where ancestor_id = ? and depth between 1 and ? order by depth, descendant_id";
+
+    private static final String ANCESTORS_SQL =
+            "select ancestor_id from tree_node_closure " +
+                    "where descendant_id = ? and depth > 0 order by depth";
+
+    private static final String DEPTH_SQL =
+            "select depth from tree_node_closure where descendant_id = ? order by depth desc limit 1";
+
+    private static final String CONTAINS_SQL =
+            "select 1 from tree_node_closure where ancestor_id = ? and descendant_id = ?";
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    @Resource
+    private TreeProperties treeProperties;
+
+    // trigger-type 为 TRANSACTION_ONLY 时事件在保存语句所在的事务中触发，抛出异常会回滚整个保存
+    @PostConstruct
+    public void registerListener() {
+        sqlClient.getTriggers(true).addEntityListener(TreeNode.class, this::onTreeNodeChanged);
+    }
+
+    private void onTreeNodeChanged(EntityEvent<TreeNode> e) {
+        // 删除由外键级联处理
+        if (e.getNewEntity() == null) {
+            return;
+        }
+        if (e.getOldEntity() != null && !e.isChanged(TreeNodeProps.PARENT)) {
+            return;
+        }
+        int nodeId = (Integer) e.getId();
+        int maxDepth = treeProperties.getClosureMaxDepth();
+        if (e.getConnection() != null) {
+            sync(e.getConnection(), nodeId, maxDepth);
+        } else {
+            // BinLog 触发器没有事务连接，只能事后单独维护
+            sqlClient.getConnectionManager().execute(con -> {
+                sync(con, nodeId, maxDepth);
+                return null;
+            });
+        }
+    }
+
+    // 按 nodeId 当前的 parent_id 维护它以及它整个子树的闭包行
+    static void sync(Connection con, int nodeId, int maxDepth) {
+        try {
+            update(con, INSERT_SELF_SQL, nodeId, nodeId);
+            try (PreparedStatement stmt = con.prepareStatement(CYCLE_SQL)) {
+                stmt.setInt(1, nodeId);
+                stmt.setInt(2, nodeId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        throw new IllegalArgumentException(
+                                "tree node " + nodeId + " cannot be moved under its own descendant"
+                        );
+                    }
+                }
+            }
+            update(con, DETACH_SQL, nodeId, nodeId);
+            update(con, ATTACH_SQL, nodeId, maxDepth, nodeId);
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to maintain tree_node_closure for node " + nodeId, e);
+        }
+    }
+
+    /**
+     * 子树中的所有节点（不含根节点），按层级排序，只包含标量属性和 parent 的 id
+     */
+    public List<TreeNode> findDescendants(int rootId, int maxDepth) {
+        List<Integer> ids = queryIds(DESCENDANTS_SQL, rootId, maxDepth);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, TreeNode> nodeMap = sqlClient.findMapByIds(
+                TreeNodeFetcher.$.allScalarFields().parent(),
+                ids
+        );
+        List<TreeNode> nodes = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            TreeNode node = nodeMap.get(id);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 祖先 id，从父节点到根节点
+     */
+    public List<Integer> findAncestorIds(int nodeId) {
+        return queryIds(ANCESTORS_SQL, nodeId);
+    }
+
+    /**
+     * 节点深度，根节点为 0；节点不存在时返回 null
+     */
+    public Integer depth(int nodeId) {
+        List<Integer> depths = queryIds(DEPTH_SQL, nodeId);
+        return depths.isEmpty() ? null : depths.get(0);
+    }
+
+    /**
+     * nodeId 是否是 ancestorId 的后代（节点自身也算）
+     */
+    public boolean isDescendant(int nodeId, int ancestorId) {
+        return !queryIds(CONTAINS_SQL, ancestorId, nodeId).isEmpty();
+    }
+
+    /**
+     * 对比闭包表和 parent_id 推导出的结果
+     */
+    public CheckResult check() {
+        int maxDepth = treeProperties.getClosureMaxDepth();
+        return execute(con -> check(con, maxDepth));
+    }
+
+    static CheckResult check(Connection con, int maxDepth) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement(CHECK_SQL)) {
+            stmt.setInt(1, maxDepth);
+            stmt.setInt(2, maxDepth);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new CheckResult(rs.getLong(1), rs.getLong(2), rs.getLong(3) > 0);
+            }
+        }
+    }
+
+    /**
+     * 清空并根据 parent_id 重建闭包表，返回写入的行数
+     */
+    public int rebuild() {
+        int maxDepth = treeProperties.getClosureMaxDepth();
+        return sqlClient.transaction(() -> execute(con -> {
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("delete from tree_node_closure");
+            }
+            return update(con, REBUILD_SQL, maxDepth);
+        }));
+    }
+
+    private List<Integer> queryIds(String sql, int... args) {
+        return execute(con -> {
+            try (PreparedStatement stmt = con.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    stmt.setInt(i + 1, args[i]);
+                }
+                List<Integer> ids = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static int update(Connection con, String sql, int... args) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                stmt.setInt(i + 1, args[i]);
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    // 通过 Jimmer 的 ConnectionManager 拿连接，和其他查询共享同一个事务
+    private <R> R execute(SqlFunction<R> block) {
+        return sqlClient.getConnectionManager().execute(con -> {
+            try {
+                return block.apply(con);
+            } catch (SQLException e) {
+                throw new IllegalStateException("failed to access tree_node_closure", e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<R> {
+        R apply(Connection con) throws SQLException;
+    }
+
+    /**
+     * @param missingRows 应有但闭包表中没有（或层数不对）的行数
+     * @param extraRows   闭包表中多出来的行数
+     * @param truncated   parent_id 推导时达到了 closureMaxDepth，可能存在环或树过深
+     */
+    public record CheckResult(long missingRows, long extraRows, boolean truncated) {
+
+        public boolean isConsistent() {
+            return missingRows == 0 && extraRows == 0;
+        }
+    }
+}
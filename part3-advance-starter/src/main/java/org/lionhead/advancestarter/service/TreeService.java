@@ -0,0 +1,190 @@
+package org.lionhead.advancestarter.service;
+
+import jakarta.annotation.Resource;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.lionhead.advancestarter.entity.TreeNode;
+import org.lionhead.advancestarter.entity.TreeNodeDraft;
+import org.lionhead.advancestarter.entity.TreeNodeFetcher;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 树形结构加载
+ * 递归抓取器（recursiveChild）每一层都要发一条 SQL，层数越多往返越多；
+ * 这里用 WITH RECURSIVE 一次查出整棵子树（或整条祖先链），再在内存中重建 TreeNode 对象树
+ */
+@Service
+public class TreeService {
+
+    private static final String COLUMNS = "node_id, name, created_time, modified_time, parent_id";
+
+    private static final String SUBTREE_SQL =
+            "with recursive subtree(" + COLUMNS + ", depth) as ( " +
+                    "select " + COLUMNS + ", 0 from tree_node where node_id = ? " +
+                    "union all " +
+                    "select c.node_id, c.name, c.created_time, c.modified_time, c.parent_id, s.depth + 1 " +
+                    "from tree_node c inner join subtree s on c.parent_id = s.node_id " +
+                    "where s.depth < ? " +
+                    ") select " + COLUMNS + ", depth from subtree order by depth, node_id";
+
+    private static final String ANCESTORS_SQL =
+            "with recursive ancestors(" + COLUMNS + ", depth) as ( " +
+                    "select " + COLUMNS + ", 0 from tree_node where node_id = ? " +
+                    "union all " +
+                    "select p.node_id, p.name, p.created_time, p.modified_time, p.parent_id, a.depth + 1 " +
+                    "from tree_node p inner join ancestors a on p.node_id = a.parent_id " +
+                    "where a.depth < ? " +
+                    ") select " + COLUMNS + ", depth from ancestors order by depth";
+
+    @Resource
+    private JSqlClient sqlClient;
+
+    /**
+     * 一条 SQL 加载子树
+     * 深度达到 maxDepth 的节点不设置 child 属性（未加载），以区分“没有子节点”和“没有继续查”
+     */
+    public TreeNode findSubtree(int rootId, int maxDepth) {
+        List<Row> rows = query(SUBTREE_SQL, rootId, maxDepth);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<Integer, List<Row>> childrenMap = new HashMap<>();
+        for (Row row : rows) {
+            if (row.depth > 0) {
+                childrenMap.computeIfAbsent(row.parentId, k -> new ArrayList<>()).add(row);
+            }
+        }
+        return buildSubtree(rows.get(0), childrenMap, maxDepth);
+    }
+
+    /**
+     * 一条 SQL 加载祖先链，返回当前节点，通过 parent 属性逐级指向根节点
+     * 超过 maxDepth 的祖先只保留 id
+     */
+    public TreeNode findAncestors(int nodeId, int maxDepth) {
+        List<Row> rows = query(ANCESTORS_SQL, nodeId, maxDepth);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        // 从最顶层的祖先开始往下构建
+        TreeNode parent = null;
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Row row = rows.get(i);
+            TreeNode currentParent = parent;
+            parent = TreeNodeDraft.$.produce(draft -> {
+                fillScalars(draft, row);
+                if (currentParent != null) {
+                    draft.setParent(currentParent);
+                } else if (row.parentId != null) {
+                    draft.applyParent(p -> p.setId(row.parentId));
+                } else {
+                    draft.setParent(null);
+                }
+            });
+        }
+        return parent;
+    }
+
+    /**
+     * 降级方案：使用递归抓取器逐层加载，每一层一条 SQL
+     */
+    public TreeNode findSubtreeByFetcher(int rootId, int maxDepth) {
+        return sqlClient.findById(
+                TreeNodeFetcher.$
+                        .allScalarFields()
+                        .parent()
+                        .recursiveChild(it -> it.depth(maxDepth)),
+                rootId
+        );
+    }
+
+    /**
+     * 降级方案：使用递归抓取器逐层加载祖先
+     */
+    public TreeNode findAncestorsByFetcher(int nodeId, int maxDepth) {
+        return sqlClient.findById(
+                TreeNodeFetcher.$
+                        .allScalarFields()
+                        .recursiveParent(it -> it.depth(maxDepth)),
+                nodeId
+        );
+    }
+
+    private TreeNode buildSubtree(Row row, Map<Integer, List<Row>> childrenMap, int maxDepth) {
+        return TreeNodeDraft.$.produce(draft -> {
+            fillScalars(draft, row);
+            if (row.parentId != null) {
+                draft.applyParent(p -> p.setId(row.parentId));
+            } else {
+                draft.setParent(null);
+            }
+            if (row.depth < maxDepth) {
+                List<Row> childRows = childrenMap.getOrDefault(row.id, Collections.emptyList());
+                List<TreeNode> child = new ArrayList<>(childRows.size());
+                for (Row childRow : childRows) {
+                    child.add(buildSubtree(childRow, childrenMap, maxDepth));
+                }
+                draft.setChild(child);
+            }
+        });
+    }
+
+    private static void fillScalars(TreeNodeDraft draft, Row row) {
+        draft.setId(row.id)
+                .setName(row.name)
+                .setCreatedTime(row.createdTime)
+                .setModifiedTime(row.modifiedTime);
+    }
+
+    // 通过 Jimmer 的 ConnectionManager 拿连接，和其他查询共享同一个事务
+    private List<Row> query(String sql, int nodeId, int maxDepth) {
+        return sqlClient.getConnectionManager().execute(con -> {
+            try (PreparedStatement stmt = con.prepareStatement(sql)) {
+                stmt.setInt(1, nodeId);
+                stmt.setInt(2, maxDepth);
+                List<Row> rows = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int parentId = rs.getInt(5);
+                        Integer nullableParentId = rs.wasNull() ? null : parentId;
+                        rows.add(new Row(
+                                rs.getInt(1),
+                                rs.getString(2),
+                                toLocalDateTime(rs.getTimestamp(3)),
+                                toLocalDateTime(rs.getTimestamp(4)),
+                                nullableParentId,
+                                rs.getInt(6)
+                        ));
+                    }
+                }
+                return rows;
+            } catch (SQLException e) {
+                throw new IllegalStateException("failed to query tree_node by recursive cte", e);
+            }
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record Row(
+            int id,
+            String name,
+            LocalDateTime createdTime,
+            LocalDateTime modifiedTime,
+            Integer parentId,
+            int depth
+    ) {
+    }
+}
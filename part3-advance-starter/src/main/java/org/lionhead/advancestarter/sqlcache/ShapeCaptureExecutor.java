@@ -0,0 +1,40 @@
+package org.lionhead.advancestarter.sqlcache;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+
+/**
+ * 把 Jimmer 最终渲染出的 SQL 和参数交给 SqlShapeCache
+ * 不在捕获范围内时只是一次 ThreadLocal 读取
+ */
+public class ShapeCaptureExecutor implements Executor {
+
+    private final Executor delegate;
+
+    public ShapeCaptureExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <R> R execute(@NotNull Args<R> args) {
+        SqlShapeCache.capture(args.sql, args.variables, args.variablePositions);
+        return delegate.execute(args);
+    }
+
+    @Override
+    public BatchContext executeBatch(
+            @NotNull Connection con,
+            @NotNull String sql,
+            @Nullable ImmutableProp generatedIdProp,
+            @NotNull ExecutionPurpose purpose,
+            @NotNull JSqlClientImplementor sqlClient
+    ) {
+        return delegate.executeBatch(con, sql, generatedIdProp, purpose, sqlClient);
+    }
+}
@@ -0,0 +1,12 @@
+package org.lionhead.advancestarter.sqlcache;
+
+/**
+ * 查询形状：同一类查询（family）中出现了哪些动态谓词和 join，用位掩码表示
+ * 全局过滤器不在这里声明，SqlShapeCache 根据 entityType 从 JSqlClient 读取生效的过滤器
+ *
+ * @param family     查询名称，例如 bookStore.search
+ * @param entityType 根实体类型
+ * @param mask       第 i 位为 1 表示第 i 个可选谓词存在
+ */
+public record ShapeKey(String family, Class<?> entityType, long mask) {
+}
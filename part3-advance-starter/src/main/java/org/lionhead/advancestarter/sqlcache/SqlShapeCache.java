@@ -0,0 +1,265 @@
+package org.lionhead.advancestarter.sqlcache;
+
+import org.babyfish.jimmer.lang.Ref;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按查询形状缓存 Jimmer 渲染出的 SQL
+ * dynamicWhere / dynamicJoin 这类查询每次执行都要重新构建 AST、渲染 SQL、优化 join，
+ * 但实际出现的谓词组合只有几种。这里第一次遇到某个形状时照常走 Jimmer，
+ * 同时由 ShapeCaptureExecutor 捕获最终 SQL 和参数；之后同形状的查询直接复用缓存的 SQL，只绑定新值。
+ *
+ * 参数位置是显式的：调用方按谓词在 SQL 中出现的顺序传入自己的值，第 i 个值就是第 i 个 JDBC 参数。
+ * 全局过滤器追加的谓词排在调用方谓词之后，调用方不需要了解它们：
+ * 缓存键除了 ShapeKey 还包括从 JSqlClient 读到的根实体上生效的过滤器及其参数（CacheableFilter.getParameters，
+ * 例如租户），不同租户、禁用了过滤器的派生 JSqlClient 各自缓存；捕获到的多出来的参数就是过滤器的参数，
+ * 随 SQL 一起缓存，命中时追加在调用方的值之后。
+ * 第一次执行时逐个核对捕获到的参数与声明的值，不一致说明声明的位置与 Jimmer 的渲染结果不符，该形状不缓存。
+ *
+ * 缓存命中时通过 JSqlClientImplementor.getExecutor() 执行，和普通 Jimmer 查询一样经过执行器链
+ * （日志、慢查询、指标、取消）并参与当前事务。只缓存根查询，命中时不涉及二级缓存。
+ *
+ * 以下情况不缓存，始终走 Jimmer：
+ * 1. 一次查询产生了多条 SQL（例如对象抓取器加载关联，关联需要经过二级缓存）
+ * 2. JDBC 参数与声明的值取值不一致，或多出的参数不是过滤器参数（例如调用方漏声明了谓词、Jimmer 对参数做了转换）
+ * 3. 根实体上有不可缓存的过滤器（Filter 而不是 CacheableFilter），无法从参数判断它渲染出的 SQL
+ */
+public class SqlShapeCache {
+
+    private static final ThreadLocal<Capture> CAPTURE = new ThreadLocal<>();
+
+    private static final Entry UNCACHEABLE = new Entry(null, null, null);
+
+    private final int maxEntries;
+
+    private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder bypasses = new LongAdder();
+
+    public SqlShapeCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param values      当前形状下调用方谓词的值，按在 SQL 中出现的顺序排列，不包括全局过滤器的参数
+     * @param jimmerQuery 用 Jimmer 构建并执行查询，缓存未命中时调用
+     * @param mapper      缓存命中时把结果行映射为对象，列按名称读取
+     */
+    public <E> List<E> query(
+            JSqlClient sqlClient,
+            ShapeKey key,
+            List<Object> values,
+            Supplier<List<E>> jimmerQuery,
+            RowMapper<E> mapper
+    ) {
+        JSqlClientImplementor implementor = (JSqlClientImplementor) sqlClient;
+        FilterKey filterKey = filterKey(implementor, key.entityType());
+        if (filterKey == null) {
+            bypasses.increment();
+            return jimmerQuery.get();
+        }
+        return query(
+                new CacheKey(key, filterKey),
+                values,
+                jimmerQuery,
+                (entry, boundValues) -> executeCached(implementor, entry, boundValues, mapper)
+        );
+    }
+
+    <E> List<E> query(
+            CacheKey key,
+            List<Object> values,
+            Supplier<List<E>> jimmerQuery,
+            CachedQuery<E> cachedQuery
+    ) {
+        Entry entry = entries.get(key);
+        if (entry == UNCACHEABLE) {
+            bypasses.increment();
+            return jimmerQuery.get();
+        }
+        if (entry != null) {
+            hits.increment();
+            return cachedQuery.execute(entry, entry.bind(values));
+        }
+        misses.increment();
+        Capture capture = new Capture();
+        CAPTURE.set(capture);
+        List<E> result;
+        try {
+            result = jimmerQuery.get();
+        } finally {
+            CAPTURE.remove();
+        }
+        if (entries.size() < maxEntries) {
+            entries.putIfAbsent(key, plan(capture, values, key.filters().parameters().values()));
+        }
+        return result;
+    }
+
+    public Stats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        long b = bypasses.sum();
+        long total = h + m + b;
+        return new Stats(entries.size(), h, m, b, total == 0 ? 0 : (double) h / total);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // 由 ShapeCaptureExecutor 调用，只有在 query() 的未命中分支中才会记录
+    static void capture(String sql, List<Object> variables, List<Integer> variablePositions) {
+        Capture capture = CAPTURE.get();
+        if (capture != null) {
+            capture.statements++;
+            capture.sql = sql;
+            capture.variables = variables != null ? new ArrayList<>(variables) : List.of();
+            capture.variablePositions = variablePositions != null ? List.copyOf(variablePositions) : null;
+        }
+    }
+
+    /**
+     * 根实体上生效的全局过滤器，从 JSqlClient 读取而不是由调用方声明：
+     * 没有过滤器（或已被禁用）、可缓存过滤器及其参数分别对应不同的缓存键；
+     * 存在不可缓存的过滤器时返回 null，表示该查询不缓存
+     */
+    static FilterKey filterKey(JSqlClientImplementor sqlClient, Class<?> entityType) {
+        Ref<SortedMap<String, Object>> ref = sqlClient.getFilters().getParameterMapRef(entityType);
+        if (ref == null) {
+            return null;
+        }
+        SortedMap<String, Object> parameters = ref.getValue();
+        return parameters == null
+                ? FilterKey.NONE
+                : new FilterKey(true, new TreeMap<>(parameters));
+    }
+
+    // 核对捕获到的 JDBC 参数：前面的与调用方声明的值逐个对应，多出来的必须是过滤器的参数
+    static Entry plan(Capture capture, List<Object> values, Collection<Object> filterParameters) {
+        if (capture.statements != 1 || capture.variables.size() < values.size()) {
+            return UNCACHEABLE;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (!Objects.equals(capture.variables.get(i), values.get(i))) {
+                return UNCACHEABLE;
+            }
+        }
+        List<Object> filterValues = List.copyOf(capture.variables.subList(values.size(), capture.variables.size()));
+        if (!filterParameters.containsAll(filterValues)) {
+            return UNCACHEABLE;
+        }
+        return new Entry(capture.sql, capture.variablePositions, filterValues);
+    }
+
+    private static <E> List<E> executeCached(
+            JSqlClientImplementor sqlClient,
+            Entry entry,
+            List<Object> values,
+            RowMapper<E> mapper
+    ) {
+        // 通过 ConnectionManager 获取连接，和 Jimmer 查询一样参与当前事务；
+        // 参数由执行器绑定，执行器链上的日志、慢查询、指标照常生效
+        return sqlClient.getConnectionManager().execute(con ->
+                sqlClient.getExecutor().execute(
+                        new Executor.Args<>(
+                                sqlClient,
+                                con,
+                                entry.sql,
+                                values,
+                                entry.variablePositions,
+                                ExecutionPurpose.QUERY,
+                                null,
+                                stmt -> {
+                                    List<E> list = new ArrayList<>();
+                                    try (ResultSet rs = stmt.executeQuery()) {
+                                        while (rs.next()) {
+                                            list.add(mapper.map(rs));
+                                        }
+                                    }
+                                    return list;
+                                }
+                        )
+                )
+        );
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<E> {
+        E map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface CachedQuery<E> {
+        List<E> execute(Entry entry, List<Object> values);
+    }
+
+    /**
+     * @param filtered   根实体上是否有生效的过滤器
+     * @param parameters 可缓存过滤器的参数，例如 {tenant=tenant-a}；ADMIN 时为空
+     */
+    record FilterKey(boolean filtered, SortedMap<String, Object> parameters) {
+
+        static final FilterKey NONE = new FilterKey(false, new TreeMap<>());
+    }
+
+    record CacheKey(ShapeKey shape, FilterKey filters) {
+    }
+
+    /**
+     * @param filterValues 过滤器的参数值，排在调用方的值之后
+     */
+    record Entry(String sql, List<Integer> variablePositions, List<Object> filterValues) {
+
+        boolean cacheable() {
+            return sql != null;
+        }
+
+        List<Object> bind(List<Object> values) {
+            if (filterValues.isEmpty()) {
+                return values;
+            }
+            List<Object> bound = new ArrayList<>(values.size() + filterValues.size());
+            bound.addAll(values);
+            bound.addAll(filterValues);
+            return bound;
+        }
+    }
+
+    static class Capture {
+
+        int statements;
+
+        String sql;
+
+        List<Object> variables;
+
+        List<Integer> variablePositions;
+    }
+
+    /**
+     * @param bypasses 形状不可缓存、直接走 Jimmer 的次数
+     */
+    public record Stats(int shapes, long hits, long misses, long bypasses, double hitRate) {
+    }
+}
@@ -0,0 +1,28 @@
+package org.lionhead.advancestarter.sqlcache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * /actuator/sqlshape：查询形状缓存的命中率
+ */
+@Endpoint(id = "sqlshape")
+public class SqlShapeEndpoint {
+
+    private final SqlShapeCache cache;
+
+    public SqlShapeEndpoint(SqlShapeCache cache) {
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public SqlShapeCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        cache.clear();
+    }
+}
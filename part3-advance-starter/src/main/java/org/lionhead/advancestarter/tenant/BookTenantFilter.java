@@ -0,0 +1,52 @@
+package org.lionhead.advancestarter.tenant;
+
+import org.babyfish.jimmer.sql.event.EntityEvent;
+import org.babyfish.jimmer.sql.filter.CacheableFilter;
+import org.babyfish.jimmer.sql.filter.FilterArgs;
+import org.lionhead.advancestarter.entity.BookProps;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Book 的全局租户过滤器
+ * jimmer-spring-boot-starter 会自动注册容器中的过滤器，之后所有针对 Book 的查询、
+ * 关联加载（BookStore.books、Author.books）和子查询都会带上 tenant = ?。
+ * 没有租户时加上 tenant is null（tenant 列非空，不返回任何数据），只有 TenantContext.ADMIN 不过滤。
+ * getParameters 作为缓存 key 的一部分，受影响的关联缓存和计算属性缓存按租户分区，租户之间不会共享缓存
+ */
+@Component
+public class BookTenantFilter implements CacheableFilter<BookProps> {
+
+    private static final String TENANT = "tenant";
+
+    @Override
+    public void filter(FilterArgs<BookProps> args) {
+        String tenant = TenantContext.get();
+        if (tenant == null) {
+            args.where(args.getTable().tenant().isNull());
+        } else if (!TenantContext.ADMIN.equals(tenant)) {
+            args.where(args.getTable().tenant().eq(tenant));
+        }
+    }
+
+    // 没有租户时同样单独分区（参数值为空字符串），不与 ADMIN 共享不过滤的缓存
+    @Override
+    public SortedMap<String, Object> getParameters() {
+        String tenant = TenantContext.get();
+        if (TenantContext.ADMIN.equals(tenant)) {
+            return Collections.emptySortedMap();
+        }
+        SortedMap<String, Object> parameters = new TreeMap<>();
+        parameters.put(TENANT, tenant != null ? tenant : "");
+        return parameters;
+    }
+
+    // 图书换了租户时，按租户分区的关联缓存需要失效
+    @Override
+    public boolean isAffectedBy(EntityEvent<?> e) {
+        return e.isChanged(BookProps.TENANT);
+    }
+}
@@ -0,0 +1,46 @@
+package org.lionhead.advancestarter.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的租户
+ * Web 请求由 TenantWebFilter 从请求头设置；后台任务、异步任务通过 call 显式指定。
+ * 没有租户时租户过滤器不返回任何数据；需要访问全部租户的数据（后台管理、批处理、索引重建）时
+ * 必须显式调用 call(ADMIN, ...)，Web 请求无法进入 ADMIN
+ */
+public final class TenantContext {
+
+    // 不受租户过滤的特殊租户，不是合法的租户名，TenantWebFilter 会拒绝该请求头
+    public static final String ADMIN = "*";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    public static boolean isAdmin() {
+        return ADMIN.equals(CURRENT.get());
+    }
+
+    public static <T> T call(String tenant, Supplier<T> action) {
+        String old = CURRENT.get();
+        set(tenant);
+        try {
+            return action.get();
+        } finally {
+            set(old);
+        }
+    }
+
+    static void set(String tenant) {
+        if (tenant != null) {
+            CURRENT.set(tenant);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
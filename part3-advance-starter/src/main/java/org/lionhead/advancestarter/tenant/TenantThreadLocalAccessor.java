@@ -0,0 +1,31 @@
+package org.lionhead.advancestarter.tenant;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * 让 Spring for GraphQL 等基于 context-propagation 的组件在切换线程时带上租户
+ */
+public class TenantThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+    public static final String KEY = "lionhead.tenant";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public String getValue() {
+        return TenantContext.get();
+    }
+
+    @Override
+    public void setValue(String value) {
+        TenantContext.set(value);
+    }
+
+    @Override
+    public void setValue() {
+        TenantContext.set(null);
+    }
+}
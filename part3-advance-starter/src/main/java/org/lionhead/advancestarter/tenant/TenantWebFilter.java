@@ -0,0 +1,44 @@
+package org.lionhead.advancestarter.tenant;
+
+import io.micrometer.context.ContextRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 从请求头 X-Tenant 读取租户，请求结束后清理
+ * 没有请求头时不设置租户，租户过滤器不返回任何图书；请求头不能指定 ADMIN
+ */
+@Component
+public class TenantWebFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Tenant";
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(new TenantThreadLocalAccessor());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String tenant = request.getHeader(HEADER);
+        if (TenantContext.ADMIN.equals(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + HEADER);
+            return;
+        }
+        TenantContext.set(tenant != null && !tenant.isBlank() ? tenant : null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.set(null);
+        }
+    }
+}
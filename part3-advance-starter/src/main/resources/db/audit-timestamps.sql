@@ -0,0 +1,36 @@
+-- 审计字段的数据库端兜底，配合 BaseEntityDraftInterceptor 使用
+-- 1. 默认值：INSERT 没有给出时间时由数据库填充
+-- 2. BEFORE UPDATE 触发器：created_time 不允许被修改（UPSERT 冲突更新时保留原值，无需先查询），
+--    UPDATE 没有修改 modified_time 时（如 createUpdate、手写 SQL）自动刷新
+-- 脚本可重复执行，dev 环境由 spring.sql.init 在启动时执行（见 application-dev.yml）
+
+create or replace function lionhead_audit_timestamps() returns trigger as $$
+begin
+    new.created_time := old.created_time;
+    if new.modified_time is not distinct from old.modified_time then
+        new.modified_time := now();
+    end if;
+    return new;
+end;
+$$ language plpgsql;
+
+alter table book_store alter column created_time set default now(), alter column modified_time set default now();
+alter table book alter column created_time set default now(), alter column modified_time set default now();
+alter table author alter column created_time set default now(), alter column modified_time set default now();
+alter table tree_node alter column created_time set default now(), alter column modified_time set default now();
+
+drop trigger if exists trg_book_store_audit on book_store;
+create trigger trg_book_store_audit before update on book_store
+    for each row execute function lionhead_audit_timestamps();
+
+drop trigger if exists trg_book_audit on book;
+create trigger trg_book_audit before update on book
+    for each row execute function lionhead_audit_timestamps();
+
+drop trigger if exists trg_author_audit on author;
+create trigger trg_author_audit before update on author
+    for each row execute function lionhead_audit_timestamps();
+
+drop trigger if exists trg_tree_node_audit on tree_node;
+create trigger trg_tree_node_audit before update on tree_node
+    for each row execute function lionhead_audit_timestamps();
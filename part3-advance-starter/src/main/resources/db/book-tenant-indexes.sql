@@ -0,0 +1,15 @@
+-- Book 租户过滤器配套的复合索引，tenant 放在最左侧，租户内的查询都能走索引
+-- 线上表较大，使用 concurrently 避免锁表（不能在事务中执行）
+
+-- BookStore.books 关联加载、bookCount / avgPrice 计算属性：where tenant = ? and store_id in (...)
+-- include price 后 GROUP BY 也可以只扫索引
+create index concurrently if not exists idx_book_tenant_store_id
+    on book (tenant, store_id, id) include (price);
+
+-- 按价格的游标分页：where tenant = ? and (price, id) > (?, ?) order by price, id
+create index concurrently if not exists idx_book_tenant_price_id
+    on book (tenant, price, id);
+
+-- 按 Key 的游标分页以及 Key 查询：where tenant = ? and (name, edition) > (?, ?)
+create index concurrently if not exists idx_book_tenant_name_edition
+    on book (tenant, name, edition) include (id);
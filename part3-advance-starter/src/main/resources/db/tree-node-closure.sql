@@ -0,0 +1,16 @@
+-- TreeNode 的闭包表，配合 lionhead.tree.closure-enabled 使用
+-- 每个节点与它自身及所有祖先各有一行，depth 为两者之间的层数（自身为 0）
+-- 1. 子树：where ancestor_id = ?            主键前缀
+-- 2. 祖先、深度：where descendant_id = ?      idx_tree_node_closure_descendant
+-- 3. X 是否在 Y 下：主键等值查询
+-- 节点删除时由外键级联删除；建表后调用 POST /tree/closure/rebuild 从 parent_id 初始化
+
+create table if not exists tree_node_closure (
+    ancestor_id   int not null references tree_node (node_id) on delete cascade,
+    descendant_id int not null references tree_node (node_id) on delete cascade,
+    depth         int not null,
+    primary key (ancestor_id, descendant_id)
+);
+
+create index if not exists idx_tree_node_closure_descendant
+    on tree_node_closure (descendant_id, depth) include (ancestor_id);
@@ -0,0 +1,123 @@
+package org.lionhead.advancestarter.async;
+
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.fetcher.Fetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.entity.AuthorDraft;
+import org.lionhead.advancestarter.entity.AuthorFetcher;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookFetcher;
+import org.lionhead.advancestarter.entity.BookStoreDraft;
+import org.lionhead.advancestarter.entity.BookStoreFetcher;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncSqlClientTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final List<Set<String>> queries = new CopyOnWriteArrayList<>();
+
+    // 两个分支各自等待对方开始，顺序执行时会超时失败
+    private final CountDownLatch partsStarted = new CountDownLatch(2);
+
+    private final Set<String> partThreads = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void detailBranchesOverlap() throws Exception {
+        BookFetcher fetcher = BookFetcher.$.name()
+                .bookStore(BookStoreFetcher.$.name().bookCount())
+                .authors(AuthorFetcher.$.firstName());
+
+        List<Book> books = client().findByIds(fetcher, List.of(1, 2)).get(10, TimeUnit.SECONDS);
+
+        assertThat(queries).hasSize(3);
+        assertThat(queries.get(0)).doesNotContain("bookStore", "authors");
+        assertThat(partThreads).hasSize(2);
+        assertThat(books).hasSize(2);
+        assertThat(books.get(0).name()).isEqualTo("book-1");
+        assertThat(books.get(0).bookStore().bookCount()).isEqualTo(1L);
+        assertThat(books.get(1).authors()).extracting(author -> author.firstName()).containsExactly("author-2");
+    }
+
+    @Test
+    void plainReferenceStaysInRootQuery() throws Exception {
+        BookFetcher fetcher = BookFetcher.$.name()
+                .bookStore(BookStoreFetcher.$.name())
+                .authors(AuthorFetcher.$.firstName());
+
+        List<Book> books = client().findByIds(fetcher, List.of(1)).get(10, TimeUnit.SECONDS);
+
+        assertThat(queries).hasSize(1);
+        assertThat(queries.get(0)).contains("bookStore", "authors");
+        assertThat(books).hasSize(1);
+    }
+
+    private AsyncSqlClient client() {
+        JSqlClient sqlClient = (JSqlClient) Proxy.newProxyInstance(
+                JSqlClient.class.getClassLoader(),
+                new Class<?>[] { JSqlClient.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByIds") && args[0] instanceof Fetcher<?> fetcher) {
+                        return findByIds(fetcher, (Collection<?>) args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+        return new AsyncSqlClient(sqlClient, executor);
+    }
+
+    private List<Book> findByIds(Fetcher<?> fetcher, Collection<?> ids) throws InterruptedException {
+        Set<String> props = fetcher.getFieldMap().keySet();
+        queries.add(Set.copyOf(props));
+        // 只取 id 和单个关联的查询是并行分支
+        if (!props.contains("name")) {
+            partThreads.add(Thread.currentThread().getName());
+            partsStarted.countDown();
+            assertThat(partsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            int bookId = (Integer) id;
+            books.add(BookDraft.$.produce(draft -> {
+                draft.setId(bookId);
+                if (props.contains("name")) {
+                    draft.setName("book-" + bookId);
+                }
+                if (props.contains("bookStore")) {
+                    draft.setBookStore(BookStoreDraft.$.produce(store -> store
+                            .setId(bookId)
+                            .setName("store-" + bookId)
+                            .setBookCount(1L)
+                    ));
+                }
+                if (props.contains("authors")) {
+                    draft.setAuthors(List.of(AuthorDraft.$.produce(author -> author
+                            .setId(bookId)
+                            .setFirstName("author-" + bookId)
+                    )));
+                }
+            }));
+        }
+        return books;
+    }
+}
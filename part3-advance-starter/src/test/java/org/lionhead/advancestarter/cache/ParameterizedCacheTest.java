@@ -0,0 +1,130 @@
+package org.lionhead.advancestarter.cache;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.meta.ImmutableType;
+import org.babyfish.jimmer.sql.cache.Cache;
+import org.babyfish.jimmer.sql.cache.CacheEnvironment;
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.entity.BookStoreProps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParameterizedCacheTest {
+
+    private final List<PartitionCache> created = new ArrayList<>();
+
+    @Test
+    void sameTenantSharesPartition() {
+        ParameterizedCache<Integer, String> cache = cache(8);
+
+        assertThat(cache.getAll(List.of(1), tenant("a"), null)).containsEntry(1, "partition-0");
+        assertThat(cache.getAll(List.of(1), tenant("a"), null)).containsEntry(1, "partition-0");
+
+        assertThat(created).hasSize(1);
+    }
+
+    @Test
+    void tenantsDoNotSharePartitions() {
+        ParameterizedCache<Integer, String> cache = cache(8);
+
+        assertThat(cache.getAll(List.of(1), tenant("a"), null)).containsEntry(1, "partition-0");
+        assertThat(cache.getAll(List.of(1), tenant("b"), null)).containsEntry(1, "partition-1");
+        assertThat(cache.getAll(List.of(1), null)).containsEntry(1, "partition-2");
+    }
+
+    @Test
+    void deleteAllReachesEveryPartition() {
+        ParameterizedCache<Integer, String> cache = cache(8);
+        cache.getAll(List.of(1), tenant("a"), null);
+        cache.getAll(List.of(1), tenant("b"), null);
+
+        cache.deleteAll(List.of(1, 2), null);
+
+        assertThat(created).allSatisfy(partition -> assertThat(partition.deleted).containsExactly(1, 2));
+    }
+
+    @Test
+    void partitionCountIsBounded() {
+        ParameterizedCache<Integer, String> cache = cache(4);
+
+        for (int i = 0; i < 100; i++) {
+            cache.getAll(List.of(1), tenant("tenant-" + i), null);
+        }
+
+        assertThat(cache.partitionCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void parameterMapIsCopied() {
+        ParameterizedCache<Integer, String> cache = cache(8);
+        SortedMap<String, Object> parameters = tenant("a");
+        cache.getAll(List.of(1), parameters, null);
+
+        parameters.put("tenant", "b");
+
+        assertThat(cache.getAll(List.of(1), tenant("a"), null)).containsEntry(1, "partition-0");
+        assertThat(created).hasSize(1);
+    }
+
+    private ParameterizedCache<Integer, String> cache(int maxPartitions) {
+        ImmutableProp prop = BookStoreProps.BOOKS.unwrap();
+        return new ParameterizedCache<>(prop, maxPartitions, () -> {
+            PartitionCache partition = new PartitionCache(prop, "partition-" + created.size());
+            created.add(partition);
+            return partition;
+        });
+    }
+
+    private static SortedMap<String, Object> tenant(String tenant) {
+        SortedMap<String, Object> parameters = new TreeMap<>();
+        parameters.put("tenant", tenant);
+        return parameters;
+    }
+
+    // 每个 key 都返回分区名，用来判断请求落到了哪个分区
+    private static class PartitionCache implements Cache<Integer, String> {
+
+        private final ImmutableProp prop;
+
+        private final String name;
+
+        private final List<Integer> deleted = new ArrayList<>();
+
+        PartitionCache(ImmutableProp prop, String name) {
+            this.prop = prop;
+            this.name = name;
+        }
+
+        @Override
+        public ImmutableType type() {
+            return prop.getDeclaringType();
+        }
+
+        @Override
+        public ImmutableProp prop() {
+            return prop;
+        }
+
+        @Override
+        public Map<Integer, String> getAll(Collection<Integer> keys, CacheEnvironment<Integer, String> env) {
+            Map<Integer, String> map = new HashMap<>();
+            for (Integer key : keys) {
+                map.put(key, name);
+            }
+            return map;
+        }
+
+        @Override
+        public void deleteAll(Collection<Integer> keys, Object reason) {
+            deleted.addAll(keys);
+        }
+    }
+}
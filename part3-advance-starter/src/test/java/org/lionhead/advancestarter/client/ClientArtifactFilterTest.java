@@ -0,0 +1,51 @@
+package org.lionhead.advancestarter.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientArtifactFilterTest {
+
+    private static final String ETAG = "\"abc\"";
+
+    @Test
+    void gzipIsAccepted() {
+        assertThat(ClientArtifactFilter.acceptsGzip("gzip")).isTrue();
+        assertThat(ClientArtifactFilter.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(ClientArtifactFilter.acceptsGzip("br, *")).isTrue();
+    }
+
+    @Test
+    void gzipIsRejected() {
+        assertThat(ClientArtifactFilter.acceptsGzip(null)).isFalse();
+        assertThat(ClientArtifactFilter.acceptsGzip("identity")).isFalse();
+        assertThat(ClientArtifactFilter.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ClientArtifactFilter.acceptsGzip("gzip;q=0.0, br")).isFalse();
+        assertThat(ClientArtifactFilter.acceptsGzip("gzip;q=abc")).isFalse();
+        assertThat(ClientArtifactFilter.acceptsGzip("x-gzip")).isFalse();
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        assertThat(ClientArtifactFilter.matches(ETAG, ETAG)).isTrue();
+        assertThat(ClientArtifactFilter.matches("W/" + ETAG, ETAG)).isTrue();
+        assertThat(ClientArtifactFilter.matches("\"x\", " + ETAG, ETAG)).isTrue();
+        assertThat(ClientArtifactFilter.matches("*", ETAG)).isTrue();
+    }
+
+    @Test
+    void ifNoneMatchMismatch() {
+        assertThat(ClientArtifactFilter.matches(null, ETAG)).isFalse();
+        assertThat(ClientArtifactFilter.matches("\"x\"", ETAG)).isFalse();
+        assertThat(ClientArtifactFilter.matches("abc", ETAG)).isFalse();
+    }
+
+    @Test
+    void cacheKeyOnlyUsesNormalizedGroups() {
+        assertThat(ClientArtifactFilter.cacheKey("/ts.zip", null)).isEqualTo("/ts.zip");
+        assertThat(ClientArtifactFilter.cacheKey("/ts.zip", " , ")).isEqualTo("/ts.zip");
+        assertThat(ClientArtifactFilter.cacheKey("/ts.zip", "b, a,b")).isEqualTo("/ts.zip?groups=a,b");
+        assertThat(ClientArtifactFilter.cacheKey("/ts.zip", "a,b"))
+                .isEqualTo(ClientArtifactFilter.cacheKey("/ts.zip", "b,a"));
+    }
+}
@@ -0,0 +1,181 @@
+package org.lionhead.advancestarter.interceptor;
+
+import org.babyfish.jimmer.meta.ImmutableProp;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.ast.mutation.SaveMode;
+import org.babyfish.jimmer.sql.dialect.PostgresDialect;
+import org.babyfish.jimmer.sql.event.TriggerType;
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+import org.babyfish.jimmer.sql.runtime.DefaultExecutor;
+import org.babyfish.jimmer.sql.runtime.ExecutionPurpose;
+import org.babyfish.jimmer.sql.runtime.Executor;
+import org.babyfish.jimmer.sql.runtime.JSqlClientImplementor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookTable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 审计字段的语句数和数据库触发器（db/audit-timestamps.sql），需要一个真实的数据库：
+ * TEST_JDBC_URL=jdbc:postgresql://localhost:5432/postgres TEST_JDBC_USERNAME=postgres TEST_JDBC_PASSWORD=postgres
+ * 每次在独立的 schema 中建表，结束后删除
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_JDBC_URL", matches = ".+")
+class AuditTimestampsTest {
+
+    private static final Timestamp EARLIER = Timestamp.valueOf("2000-01-01 00:00:00");
+
+    private final String schema = "audit_timestamps_test_" + System.nanoTime();
+
+    private Connection con;
+
+    @BeforeEach
+    void createTables() throws SQLException, IOException {
+        con = DriverManager.getConnection(
+                System.getenv("TEST_JDBC_URL"),
+                System.getenv().getOrDefault("TEST_JDBC_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_JDBC_PASSWORD", "postgres")
+        );
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("create schema " + schema);
+            stmt.execute("set search_path to " + schema);
+            for (String table : List.of("book_store", "author", "tree_node")) {
+                stmt.execute("create table " + table + " (id int primary key, " +
+                        "created_time timestamp not null, modified_time timestamp not null)");
+            }
+            stmt.execute("create table book (id int primary key, name varchar(50) not null, edition int not null, " +
+                    "price numeric(10, 2) not null, tenant varchar(20) not null, store_id int, " +
+                    "created_time timestamp not null, modified_time timestamp not null)");
+            // 与 spring.sql.init 一样，整个脚本作为一条语句执行
+            try (InputStream in = AuditTimestampsTest.class.getResourceAsStream("/db/audit-timestamps.sql")) {
+                assertThat(in).isNotNull();
+                stmt.execute(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            stmt.execute("insert into book(id, name, edition, price, tenant, created_time, modified_time) values " +
+                    "(1, 'a', 1, 10, 'tenant-a', '2000-01-01', '2000-01-01'), " +
+                    "(2, 'b', 1, 20, 'tenant-a', '2000-01-01', '2000-01-01')");
+        }
+    }
+
+    @AfterEach
+    void dropTables() throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("drop schema " + schema + " cascade");
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    void triggerFillsDefaultsAndKeepsCreatedTime() throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("insert into book(id, name, edition, price, tenant) values (3, 'c', 1, 30, 'tenant-a')");
+            assertThat(timestamps(3)[0]).isNotNull();
+
+            stmt.execute("update book set name = 'a2', created_time = now() where id = 1");
+            Timestamp[] updated = timestamps(1);
+            assertThat(updated[0]).isEqualTo(EARLIER);
+            assertThat(updated[1]).isAfter(EARLIER);
+
+            stmt.execute("update book set modified_time = '2010-01-01' where id = 2");
+            assertThat(timestamps(2)[1]).isEqualTo(Timestamp.valueOf("2010-01-01 00:00:00"));
+        }
+    }
+
+    // 拦截器不增加语句；TRANSACTION_ONLY 下每次修改前都有一次查询旧数据的 select
+    @Test
+    void interceptorAddsNoStatements() {
+        BookTable table = BookTable.$;
+        List<Consumer<JSqlClient>> operations = List.of(
+                sql -> sql.save(book(1, 11), SaveMode.UPDATE_ONLY),
+                sql -> sql.saveEntities(List.of(book(1, 12), book(2, 22)), SaveMode.UPDATE_ONLY),
+                sql -> sql.createUpdate(table).set(table.price(), table.price().plus(1.0)).execute()
+        );
+        for (Consumer<JSqlClient> operation : operations) {
+            List<String> plain = statements(false, operation);
+            List<String> intercepted = statements(true, operation);
+
+            assertThat(intercepted).hasSameSizeAs(plain);
+            assertThat(intercepted.stream().filter(AuditTimestampsTest::isSelect)).hasSize(1);
+            assertThat(isSelect(intercepted.get(0))).isTrue();
+            assertThat(intercepted.get(intercepted.size() - 1)).startsWithIgnoringCase("update");
+        }
+    }
+
+    private List<String> statements(boolean intercepted, Consumer<JSqlClient> operation) {
+        RecordingExecutor executor = new RecordingExecutor();
+        JSqlClient.Builder builder = JSqlClient.newBuilder()
+                .setConnectionManager(ConnectionManager.singleConnectionManager(con))
+                .setDialect(new PostgresDialect())
+                .setTriggerType(TriggerType.TRANSACTION_ONLY)
+                .setExecutor(executor);
+        if (intercepted) {
+            builder.addDraftInterceptor(new BaseEntityDraftInterceptor());
+        }
+        JSqlClient sqlClient = builder.build();
+        sqlClient.transaction(() -> {
+            operation.accept(sqlClient);
+            return null;
+        });
+        return executor.statements;
+    }
+
+    private Timestamp[] timestamps(int id) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("select created_time, modified_time from book where id = " + id)) {
+            assertThat(rs.next()).isTrue();
+            return new Timestamp[] { rs.getTimestamp(1), rs.getTimestamp(2) };
+        }
+    }
+
+    private static Book book(int id, double price) {
+        return BookDraft.$.produce(draft -> draft.setId(id).setPrice(price));
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static class RecordingExecutor implements Executor {
+
+        final List<String> statements = new ArrayList<>();
+
+        @Override
+        public <R> R execute(@NotNull Args<R> args) {
+            statements.add(args.sql);
+            return DefaultExecutor.INSTANCE.execute(args);
+        }
+
+        @Override
+        public BatchContext executeBatch(
+                @NotNull Connection con,
+                @NotNull String sql,
+                @Nullable ImmutableProp generatedIdProp,
+                @NotNull ExecutionPurpose purpose,
+                @NotNull JSqlClientImplementor sqlClient
+        ) {
+            statements.add(sql);
+            return DefaultExecutor.INSTANCE.executeBatch(con, sql, generatedIdProp, purpose, sqlClient);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.lionhead.advancestarter.interceptor;
+
+import org.babyfish.jimmer.ImmutableObjects;
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.entity.Book;
+import org.lionhead.advancestarter.entity.BookDraft;
+import org.lionhead.advancestarter.entity.BookProps;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaseEntityDraftInterceptorTest {
+
+    private static final LocalDateTime EARLIER = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final BaseEntityDraftInterceptor interceptor = new BaseEntityDraftInterceptor();
+
+    @Test
+    void newObjectGetsBothTimestamps() {
+        Book book = BookDraft.$.produce(draft -> interceptor.beforeSave(draft.setName("a"), true));
+
+        assertThat(book.createdTime()).isNotNull();
+        assertThat(book.modifiedTime()).isEqualTo(book.createdTime());
+    }
+
+    @Test
+    void updateLeavesCreatedTimeUnloaded() {
+        Book book = BookDraft.$.produce(draft -> interceptor.beforeSave(draft.setId(1), false));
+
+        assertThat(ImmutableObjects.isLoaded(book, BookProps.CREATED_TIME)).isFalse();
+        assertThat(book.modifiedTime()).isAfter(EARLIER);
+    }
+
+    @Test
+    void explicitTimestampsAreKept() {
+        Book book = BookDraft.$.produce(draft -> interceptor.beforeSave(
+                draft.setCreatedTime(EARLIER).setModifiedTime(EARLIER),
+                true
+        ));
+
+        assertThat(book.createdTime()).isEqualTo(EARLIER);
+        assertThat(book.modifiedTime()).isEqualTo(EARLIER);
+    }
+}
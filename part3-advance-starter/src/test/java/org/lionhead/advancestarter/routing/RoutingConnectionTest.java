@@ -0,0 +1,238 @@
+package org.lionhead.advancestarter.routing;
+
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.config.RoutingProperties;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoutingConnectionTest {
+
+    private final FakeDataSource primary = new FakeDataSource("primary");
+
+    private final FakeDataSource replica = new FakeDataSource("replica");
+
+    private final RoutingDataSource routingDataSource = new RoutingDataSource(
+            primary.proxy(),
+            List.of(replica.proxy()),
+            List.of("replica"),
+            RoutingProperties.Balance.ROUND_ROBIN,
+            true
+    );
+
+    @Test
+    void selectAndCteAreReads() {
+        assertThat(RoutingConnection.isRead("select * from book where id = ?")).isTrue();
+        assertThat(RoutingConnection.isRead("  (select id from book) union (select id from author)")).isTrue();
+        assertThat(RoutingConnection.isRead(
+                "with recursive t(id) as (select id from tree_node where id = ? union all " +
+                        "select n.id from tree_node n join t on n.parent_id = t.id) select id from t"
+        )).isTrue();
+        assertThat(RoutingConnection.isRead("select last_update, update_time from book")).isTrue();
+    }
+
+    @Test
+    void lockingAndModifyingStatementsAreWrites() {
+        assertThat(RoutingConnection.isRead("select * from book where id = ? for update")).isFalse();
+        assertThat(RoutingConnection.isRead("SELECT * FROM book FOR NO KEY UPDATE")).isFalse();
+        assertThat(RoutingConnection.isRead("select * from book for share")).isFalse();
+        assertThat(RoutingConnection.isRead(
+                "with moved as (delete from book where id = ? returning *) insert into book_archive select * from moved"
+        )).isFalse();
+        assertThat(RoutingConnection.isRead("with s as (select 1) insert into book(id) select * from s")).isFalse();
+        assertThat(RoutingConnection.isRead("update book set price = ?")).isFalse();
+        assertThat(RoutingConnection.isRead("copy book from stdin")).isFalse();
+    }
+
+    @Test
+    void sequenceFunctionsAreWrites() {
+        assertThat(RoutingConnection.isRead("select nextval('book_id_seq')")).isFalse();
+        assertThat(RoutingConnection.isRead("SELECT NEXTVAL ('book_id_seq') from generate_series(1, 10)")).isFalse();
+        assertThat(RoutingConnection.isRead("select currval('book_id_seq')")).isFalse();
+        assertThat(RoutingConnection.isRead("select setval('book_id_seq', 100)")).isFalse();
+    }
+
+    @Test
+    void autoCommitReadGoesToReplica() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.prepareStatement("select * from book");
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(replica)");
+            assertThat(primary.opened).isEmpty();
+            assertThat(replica.opened).hasSize(1);
+        }
+        assertThat(replica.opened.get(0).closed).isTrue();
+    }
+
+    @Test
+    void writeAfterReadMovesToPrimaryAndStays() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.prepareStatement("select * from book");
+            con.prepareStatement("insert into book(name) values(?)");
+
+            assertThat(replica.opened.get(0).closed).isTrue();
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+
+            con.prepareStatement("select * from book");
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+            assertThat(replica.opened).hasSize(1);
+            assertThat(primary.opened).hasSize(1);
+        }
+    }
+
+    @Test
+    void readInWriteTransactionGoesToPrimary() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.setAutoCommit(false);
+            con.prepareStatement("select * from book");
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+            assertThat(primary.opened.get(0).calls).contains("setAutoCommit:false");
+            assertThat(replica.opened).isEmpty();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.setAutoCommit(false);
+            con.setReadOnly(true);
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            con.prepareStatement("select * from book");
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(replica)");
+            assertThat(replica.opened.get(0).calls).containsExactly(
+                    "setTransactionIsolation:" + Connection.TRANSACTION_REPEATABLE_READ,
+                    "setReadOnly:true",
+                    "setAutoCommit:false",
+                    "prepareStatement:select * from book"
+            );
+        }
+    }
+
+    @Test
+    void settingsBeforeFirstStatementDoNotBorrowConnection() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.setAutoCommit(false);
+            assertThat(con.getAutoCommit()).isFalse();
+            con.setReadOnly(true);
+            assertThat(con.isReadOnly()).isTrue();
+            con.commit();
+            con.rollback();
+        }
+        assertThat(primary.opened).isEmpty();
+        assertThat(replica.opened).isEmpty();
+    }
+
+    @Test
+    void unknownCallsGoToPrimary() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            con.createStatement();
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+        }
+    }
+
+    @Test
+    void forcedPrimaryIgnoresReplicas() throws SQLException {
+        try (Connection con = routingDataSource.getConnection()) {
+            RouteContext.primary(() -> {
+                try {
+                    return con.prepareStatement("select * from book");
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+        }
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() throws SQLException {
+        replica.unavailable = true;
+        try (Connection con = routingDataSource.getConnection()) {
+            con.prepareStatement("select * from book");
+
+            assertThat(con.toString()).isEqualTo("RoutingConnection(primary)");
+        }
+        assertThat(routingDataSource.snapshot().get(1).errors()).isEqualTo(1);
+    }
+
+    @Test
+    void closeReturnsLeaseOnce() throws SQLException {
+        Connection con = routingDataSource.getConnection();
+        con.prepareStatement("select * from book");
+        assertThat(routingDataSource.snapshot().get(1).inFlight()).isEqualTo(1);
+
+        con.close();
+        con.close();
+
+        assertThat(con.isClosed()).isTrue();
+        assertThat(routingDataSource.snapshot().get(1).inFlight()).isZero();
+        assertThat(replica.opened.get(0).calls).containsOnlyOnce("close");
+        assertThatThrownBy(() -> con.prepareStatement("select 1")).isInstanceOf(SQLException.class);
+    }
+
+    // 记录每个物理连接上的调用
+    private static class FakeDataSource {
+
+        final String name;
+
+        final List<FakeConnection> opened = new ArrayList<>();
+
+        boolean unavailable;
+
+        FakeDataSource(String name) {
+            this.name = name;
+        }
+
+        DataSource proxy() {
+            return (DataSource) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        if (!method.getName().equals("getConnection")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        if (unavailable) {
+                            throw new SQLException(name + " is unavailable");
+                        }
+                        FakeConnection con = new FakeConnection();
+                        opened.add(con);
+                        return con.proxy();
+                    }
+            );
+        }
+    }
+
+    private static class FakeConnection {
+
+        final List<String> calls = new ArrayList<>();
+
+        boolean closed;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("close")) {
+                            closed = true;
+                        }
+                        calls.add(args != null && args.length > 0 ? name + ":" + args[0] : name);
+                        return null;
+                    }
+            );
+        }
+    }
+}
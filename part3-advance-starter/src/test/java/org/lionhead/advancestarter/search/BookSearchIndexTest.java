@@ -0,0 +1,112 @@
+package org.lionhead.advancestarter.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    private static final int[] NO_AUTHORS = new int[0];
+
+    private final BookSearchIndex index = new BookSearchIndex(2.0f, 1.0f);
+
+    @Test
+    void infixMatchesInsideWords() {
+        index.putBook(1, "a", "Learning GraphQL", NO_AUTHORS);
+        index.putBook(2, "a", "Programming TypeScript", NO_AUTHORS);
+
+        assertThat(ids("gram", "a")).containsExactly(2);
+        assertThat(ids("script", "a")).containsExactly(2);
+        assertThat(ids("graph", "a")).containsExactly(1);
+    }
+
+    @Test
+    void shortTokensOnlyMatchPrefixes() {
+        index.putBook(1, "a", "Learning GraphQL", NO_AUTHORS);
+        index.putBook(2, "a", "Programming TypeScript", NO_AUTHORS);
+
+        assertThat(ids("gr", "a")).containsExactly(1);
+    }
+
+    @Test
+    void exactBeforePrefixBeforeInfix() {
+        index.putBook(1, "a", "OpenJava", NO_AUTHORS);
+        index.putBook(2, "a", "JavaScript", NO_AUTHORS);
+        index.putBook(3, "a", "Java", NO_AUTHORS);
+
+        assertThat(ids("java", "a")).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void allTokensMustMatch() {
+        index.putBook(1, "a", "Learning GraphQL", NO_AUTHORS);
+        index.putBook(2, "a", "Learning Java", NO_AUTHORS);
+
+        assertThat(ids("learning graph", "a")).containsExactly(1);
+        assertThat(ids("learning rust", "a")).isEmpty();
+    }
+
+    @Test
+    void authorNamesMatchTheirBooks() {
+        index.putAuthor(10, "Alex", "Banks");
+        index.putBook(1, "a", "Learning GraphQL", new int[]{10});
+
+        assertThat(ids("banks", "a")).containsExactly(1);
+
+        index.removeAuthor(10);
+
+        assertThat(ids("banks", "a")).isEmpty();
+    }
+
+    @Test
+    void otherTenantsAreFilteredBeforeLimit() {
+        // 租户 b 的完整匹配得分更高，不能挤掉租户 a 的前缀匹配
+        index.putBook(1, "b", "Java", NO_AUTHORS);
+        index.putBook(2, "b", "Java", NO_AUTHORS);
+        index.putBook(3, "a", "JavaScript", NO_AUTHORS);
+
+        assertThat(ids("java", "a", 1)).containsExactly(3);
+        assertThat(ids("java", "b", 10)).containsExactly(1, 2);
+        assertThat(ids("java", "c", 10)).isEmpty();
+        assertThat(ids("java", null, 10)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void changingTenantMovesBook() {
+        index.putBook(1, "a", "Java", NO_AUTHORS);
+        index.putBook(1, "b", "Java", NO_AUTHORS);
+
+        assertThat(ids("java", "a")).isEmpty();
+        assertThat(ids("java", "b")).containsExactly(1);
+    }
+
+    @Test
+    void removedBookLeavesNoTerms() {
+        index.putBook(1, "a", "Programming TypeScript", NO_AUTHORS);
+
+        index.removeBook(1);
+
+        assertThat(ids("gram", "a")).isEmpty();
+        assertThat(ids("gram", null)).isEmpty();
+        assertThat(index.stats()).isEqualTo(new BookSearchIndex.Stats(0, 0, 0, 0));
+    }
+
+    @Test
+    void renamedBookDropsOldTerms() {
+        index.putBook(1, "a", "Programming TypeScript", NO_AUTHORS);
+        index.putBook(1, "a", "Learning GraphQL", NO_AUTHORS);
+
+        assertThat(ids("gram", "a")).isEmpty();
+        assertThat(ids("graph", "a")).containsExactly(1);
+    }
+
+    private List<Integer> ids(String query, String tenant) {
+        return ids(query, tenant, 10);
+    }
+
+    private List<Integer> ids(String query, String tenant, int limit) {
+        return index.search(query, tenant, limit).stream().map(BookSearchIndex.Hit::bookId).toList();
+    }
+}
@@ -0,0 +1,37 @@
+package org.lionhead.advancestarter.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextTokenizerTest {
+
+    @Test
+    void lettersAndDigitsAreLowerCasedWords() {
+        assertThat(TextTokenizer.tokenize("Effective Java, 3rd Edition"))
+                .containsExactly("effective", "java", "3rd", "edition");
+    }
+
+    @Test
+    void duplicatesAreRemoved() {
+        assertThat(TextTokenizer.tokenize("Java / JAVA java")).containsExactly("java");
+    }
+
+    @Test
+    void hanIsSplitIntoBigrams() {
+        assertThat(TextTokenizer.tokenize("数据结构")).containsExactly("数据", "据结", "结构");
+        assertThat(TextTokenizer.tokenize("书")).containsExactly("书");
+    }
+
+    @Test
+    void hanAndLatinAreSeparated() {
+        assertThat(TextTokenizer.tokenize("Java编程思想")).containsExactly("java", "编程", "程思", "思想");
+    }
+
+    @Test
+    void emptyTextHasNoTokens() {
+        assertThat(TextTokenizer.tokenize(null)).isEmpty();
+        assertThat(TextTokenizer.tokenize("")).isEmpty();
+        assertThat(TextTokenizer.tokenize(" - ,")).isEmpty();
+    }
+}
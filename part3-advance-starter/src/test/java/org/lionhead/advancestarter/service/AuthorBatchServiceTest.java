@@ -0,0 +1,43 @@
+package org.lionhead.advancestarter.service;
+
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.entity.Author;
+import org.lionhead.advancestarter.entity.AuthorDraft;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthorBatchServiceTest {
+
+    @Test
+    void deduplicateKeepsLastAuthorPerKey() {
+        List<Author> chunk = List.of(
+                author("Alex", "Banks", "M"),
+                author("Eve", "Procello", "F"),
+                author("Alex", "Banks", "F")
+        );
+
+        List<Author> authors = AuthorBatchService.deduplicate(chunk);
+
+        assertThat(authors).hasSize(2);
+        assertThat(authors.get(0).firstName()).isEqualTo("Eve");
+        assertThat(authors.get(1).firstName()).isEqualTo("Alex");
+        assertThat(authors.get(1).gender()).isEqualTo("F");
+    }
+
+    @Test
+    void deduplicateKeepsChunkWithoutDuplicates() {
+        List<Author> chunk = List.of(author("Alex", "Banks", "M"), author("Eve", "Procello", "F"));
+
+        assertThat(AuthorBatchService.deduplicate(chunk)).containsExactlyElementsOf(chunk);
+    }
+
+    private static Author author(String firstName, String lastName, String gender) {
+        return AuthorDraft.$.produce(draft -> draft
+                .setFirstName(firstName)
+                .setLastName(lastName)
+                .setGender(gender)
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.babyfish.jimmer.jackson.ImmutableModule;
+import org.babyfish.jimmer.sql.JSqlClient;
+import org.babyfish.jimmer.sql.dialect.PostgresDialect;
+import org.babyfish.jimmer.sql.runtime.ConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.lionhead.advancestarter.config.BookExportProperties;
+import org.lionhead.advancestarter.tenant.BookTenantFilter;
+import org.lionhead.advancestarter.tenant.TenantContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 导出的响应体在另一个线程中执行，模拟 MVC 的异步线程：请求线程上的租户必须带过去
+ * TEST_JDBC_URL=jdbc:postgresql://localhost:5432/postgres TEST_JDBC_USERNAME=postgres TEST_JDBC_PASSWORD=postgres
+ * 每次在独立的 schema 中建表，结束后删除
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_JDBC_URL", matches = ".+")
+class BookExportServiceTest {
+
+    private final String schema = "book_export_test_" + System.nanoTime();
+
+    private final ExecutorService asyncExecutor = Executors.newSingleThreadExecutor();
+
+    private Connection con;
+
+    private BookExportService bookExportService;
+
+    @BeforeEach
+    void createTables() throws SQLException {
+        con = DriverManager.getConnection(
+                System.getenv("TEST_JDBC_URL"),
+                System.getenv().getOrDefault("TEST_JDBC_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_JDBC_PASSWORD", "postgres")
+        );
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("create schema " + schema);
+            stmt.execute("set search_path to " + schema);
+            stmt.execute("create table book_store (id int primary key, name varchar(50) not null, " +
+                    "website varchar(100), created_time timestamp, modified_time timestamp)");
+            stmt.execute("create table book (id int primary key, name varchar(50) not null, edition int not null, " +
+                    "price numeric(10, 2) not null, tenant varchar(20) not null, store_id int, " +
+                    "created_time timestamp, modified_time timestamp)");
+            stmt.execute("create table author (id int primary key, first_name varchar(50) not null, " +
+                    "last_name varchar(50) not null, gender varchar(1) not null, " +
+                    "created_time timestamp, modified_time timestamp)");
+            stmt.execute("create table book_author_mapping (book_id int not null, author_id int not null, " +
+                    "primary key (book_id, author_id))");
+            stmt.execute("insert into book(id, name, edition, price, tenant) values " +
+                    "(1, 'a1', 1, 10, 'tenant-a'), (2, 'a2', 1, 20, 'tenant-a'), (3, 'b1', 1, 30, 'tenant-b')");
+        }
+        JSqlClient sqlClient = JSqlClient.newBuilder()
+                .setConnectionManager(ConnectionManager.singleConnectionManager(con))
+                .setDialect(new PostgresDialect())
+                .addFilters(new BookTenantFilter())
+                .build();
+        bookExportService = new BookExportService();
+        ReflectionTestUtils.setField(bookExportService, "sqlClient", sqlClient);
+        ReflectionTestUtils.setField(
+                bookExportService,
+                "objectMapper",
+                new ObjectMapper().registerModule(new ImmutableModule())
+        );
+        ReflectionTestUtils.setField(bookExportService, "bookExportProperties", new BookExportProperties());
+    }
+
+    @AfterEach
+    void dropTables() throws SQLException {
+        asyncExecutor.shutdownNow();
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("drop schema " + schema + " cascade");
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    void exportOnAnotherThreadKeepsRequestTenant() throws Exception {
+        StreamingResponseBody body = TenantContext.call("tenant-a", () -> bookExportService.exportBody(1));
+
+        assertThat(writeAsync(body)).hasSize(2).allMatch(line -> line.contains("\"tenant\":\"tenant-a\""));
+    }
+
+    @Test
+    void exportWithoutTenantReturnsNothing() throws Exception {
+        assertThat(writeAsync(bookExportService.exportBody(1))).isEmpty();
+    }
+
+    private List<String> writeAsync(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture.runAsync(() -> {
+            try {
+                body.writeTo(out);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, asyncExecutor).get(10, TimeUnit.SECONDS);
+        String text = out.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+    }
+}
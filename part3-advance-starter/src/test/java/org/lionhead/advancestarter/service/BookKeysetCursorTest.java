@@ -0,0 +1,70 @@
+package org.lionhead.advancestarter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookKeysetCursorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsPriceIdCursor() {
+        String cursor = BookKeysetService.encodeCursor(objectMapper, BookSortKey.PRICE_ID, List.of(19.9, 42));
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(BookKeysetService.decodeCursor(objectMapper, BookSortKey.PRICE_ID, cursor))
+                .containsExactly(19.9, 42);
+    }
+
+    @Test
+    void roundTripsNameEditionCursor() {
+        String cursor = BookKeysetService.encodeCursor(objectMapper, BookSortKey.NAME_EDITION, List.of("GraphQL in Action", 3));
+
+        assertThat(BookKeysetService.decodeCursor(objectMapper, BookSortKey.NAME_EDITION, cursor))
+                .containsExactly("GraphQL in Action", 3);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSortKey() {
+        String cursor = BookKeysetService.encodeCursor(objectMapper, BookSortKey.PRICE_ID, List.of(19.9, 42));
+
+        assertThatThrownBy(() -> BookKeysetService.decodeCursor(objectMapper, BookSortKey.NAME_EDITION, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTamperedKeyTypes() {
+        assertThatThrownBy(() -> decode(BookSortKey.PRICE_ID, "{\"sort\":\"PRICE_ID\",\"keys\":[\"cheap\",1]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.PRICE_ID, "{\"sort\":\"PRICE_ID\",\"keys\":[1.5,2.5]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.PRICE_ID, "{\"sort\":\"PRICE_ID\",\"keys\":[1.5,9999999999]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.NAME_EDITION, "{\"sort\":\"NAME_EDITION\",\"keys\":[1,2]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.NAME_EDITION, "{\"sort\":\"NAME_EDITION\",\"keys\":[\"a\",{}]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> BookKeysetService.decodeCursor(objectMapper, BookSortKey.PRICE_ID, "not base64!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.PRICE_ID, "null"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode(BookSortKey.PRICE_ID, "{\"sort\":\"PRICE_ID\",\"keys\":[1]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Object> decode(BookSortKey sortKey, String json) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        return BookKeysetService.decodeCursor(objectMapper, sortKey, cursor);
+    }
+}
@@ -0,0 +1,200 @@
+package org.lionhead.advancestarter.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 闭包表维护 SQL 依赖 PostgreSQL 的递归 CTE 和 ON CONFLICT，需要一个真实的数据库：
+ * TEST_JDBC_URL=jdbc:postgresql://localhost:5432/postgres TEST_JDBC_USERNAME=postgres TEST_JDBC_PASSWORD=postgres
+ * 每次在独立的 schema 中建表，结束后删除
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_JDBC_URL", matches = ".+")
+class TreeClosureServiceTest {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final String schema = "tree_closure_test_" + System.nanoTime();
+
+    private Connection con;
+
+    @BeforeEach
+    void createTables() throws SQLException {
+        con = DriverManager.getConnection(
+                System.getenv("TEST_JDBC_URL"),
+                System.getenv().getOrDefault("TEST_JDBC_USERNAME", "postgres"),
+                System.getenv().getOrDefault("TEST_JDBC_PASSWORD", "postgres")
+        );
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("create schema " + schema);
+            stmt.execute("set search_path to " + schema);
+            stmt.execute("create table tree_node (node_id int primary key, name varchar(50) not null, " +
+                    "parent_id int references tree_node (node_id))");
+            stmt.execute("create table tree_node_closure (" +
+                    "ancestor_id int not null references tree_node (node_id) on delete cascade, " +
+                    "descendant_id int not null references tree_node (node_id) on delete cascade, " +
+                    "depth int not null, primary key (ancestor_id, descendant_id))");
+        }
+    }
+
+    @AfterEach
+    void dropTables() throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("drop schema " + schema + " cascade");
+        } finally {
+            con.close();
+        }
+    }
+
+    @Test
+    void insertedNodesAreLinkedToAllAncestors() throws SQLException {
+        insert(1, null);
+        insert(2, 1);
+        insert(3, 1);
+        insert(4, 2);
+
+        assertThat(ancestors(4)).containsExactly(2, 1);
+        assertThat(descendants(1)).containsExactly(2, 3, 4);
+        assertConsistent();
+    }
+
+    @Test
+    void movedSubtreeKeepsInternalRowsAndGetsNewAncestors() throws SQLException {
+        insert(1, null);
+        insert(2, 1);
+        insert(3, 1);
+        insert(4, 2);
+        insert(5, 4);
+
+        move(2, 3);
+
+        assertThat(ancestors(5)).containsExactly(4, 2, 3, 1);
+        assertThat(descendants(3)).containsExactly(2, 4, 5);
+        assertThat(descendants(2)).containsExactly(4, 5);
+        assertConsistent();
+    }
+
+    @Test
+    void movingToRootDetachesOldAncestors() throws SQLException {
+        insert(1, null);
+        insert(2, 1);
+        insert(3, 2);
+
+        move(2, null);
+
+        assertThat(ancestors(3)).containsExactly(2);
+        assertThat(descendants(1)).isEmpty();
+        assertConsistent();
+    }
+
+    @Test
+    void childEventBeforeParentEvent() throws SQLException {
+        insert(1, null);
+        // 同一次保存中子节点的事件先于父节点处理
+        insertRow(2, 1);
+        insertRow(3, 2);
+        TreeClosureService.sync(con, 3, MAX_DEPTH);
+        TreeClosureService.sync(con, 2, MAX_DEPTH);
+
+        assertThat(ancestors(3)).containsExactly(2, 1);
+        assertConsistent();
+    }
+
+    @Test
+    void moveUnderOwnDescendantIsRejected() throws SQLException {
+        insert(1, null);
+        insert(2, 1);
+        insert(3, 2);
+
+        update("update tree_node set parent_id = 3 where node_id = 1");
+
+        assertThatThrownBy(() -> TreeClosureService.sync(con, 1, MAX_DEPTH))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void checkReportsManualChanges() throws SQLException {
+        insert(1, null);
+        insert(2, 1);
+        insert(3, 1);
+
+        // 手写 SQL 修改 parent_id 不会维护闭包表
+        update("update tree_node set parent_id = 2 where node_id = 3");
+
+        // 缺少 (2, 3, 1)，(1, 3) 的层数应为 2 而不是 1
+        TreeClosureService.CheckResult result = TreeClosureService.check(con, MAX_DEPTH);
+        assertThat(result.isConsistent()).isFalse();
+        assertThat(result.missingRows()).isEqualTo(2);
+        assertThat(result.extraRows()).isEqualTo(1);
+    }
+
+    private void insert(int id, Integer parentId) throws SQLException {
+        insertRow(id, parentId);
+        TreeClosureService.sync(con, id, MAX_DEPTH);
+    }
+
+    private void insertRow(int id, Integer parentId) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement(
+                "insert into tree_node (node_id, name, parent_id) values (?, ?, ?)"
+        )) {
+            stmt.setInt(1, id);
+            stmt.setString(2, "node-" + id);
+            stmt.setObject(3, parentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void move(int id, Integer parentId) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement("update tree_node set parent_id = ? where node_id = ?")) {
+            stmt.setObject(1, parentId);
+            stmt.setInt(2, id);
+            stmt.executeUpdate();
+        }
+        TreeClosureService.sync(con, id, MAX_DEPTH);
+    }
+
+    private void update(String sql) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private List<Integer> ancestors(int id) throws SQLException {
+        return ids("select ancestor_id from tree_node_closure where descendant_id = ? and depth > 0 order by depth", id);
+    }
+
+    private List<Integer> descendants(int id) throws SQLException {
+        return ids("select descendant_id from tree_node_closure where ancestor_id = ? and depth > 0 " +
+                "order by depth, descendant_id", id);
+    }
+
+    private List<Integer> ids(String sql, int id) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            return ids;
+        }
+    }
+
+    private void assertConsistent() throws SQLException {
+        assertThat(TreeClosureService.check(con, MAX_DEPTH).isConsistent()).isTrue();
+    }
+}
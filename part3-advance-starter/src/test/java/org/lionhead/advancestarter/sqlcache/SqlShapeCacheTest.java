@@ -0,0 +1,144 @@
+package org.lionhead.advancestarter.sqlcache;
+
+import org.junit.jupiter.api.Test;
+import org.lionhead.advancestarter.entity.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapeCacheTest {
+
+    private static final String SQL = "select tb_1_.ID from BOOK_STORE tb_1_ where tb_1_.WEBSITE = ? and tb_1_.NAME = ?";
+
+    private static final String TENANT_SQL = "select tb_1_.ID from BOOK tb_1_ where tb_1_.STORE_ID = ? and tb_1_.TENANT = ?";
+
+    private static final ShapeKey BY_STORE = new ShapeKey("book.byStore", Book.class, 1);
+
+    @Test
+    void planKeepsDeclaredPositions() {
+        SqlShapeCache.Entry entry = SqlShapeCache.plan(
+                capture(SQL, List.of("w", "n"), List.of(60, 83)),
+                List.of("w", "n"),
+                List.of()
+        );
+
+        assertThat(entry.cacheable()).isTrue();
+        assertThat(entry.sql()).isEqualTo(SQL);
+        assertThat(entry.variablePositions()).containsExactly(60, 83);
+    }
+
+    @Test
+    void planAcceptsEqualValues() {
+        SqlShapeCache.Entry entry = SqlShapeCache.plan(capture(SQL, List.of("x", "x"), null), List.of("x", "x"), List.of());
+
+        assertThat(entry.cacheable()).isTrue();
+    }
+
+    @Test
+    void planRejectsDifferentOrder() {
+        SqlShapeCache.Entry entry = SqlShapeCache.plan(capture(SQL, List.of("n", "w"), null), List.of("w", "n"), List.of());
+
+        assertThat(entry.cacheable()).isFalse();
+    }
+
+    @Test
+    void planRejectsUndeclaredParameter() {
+        SqlShapeCache.Entry entry = SqlShapeCache.plan(capture(SQL, List.of(1, "tenant-a"), null), List.of(1), List.of());
+
+        assertThat(entry.cacheable()).isFalse();
+    }
+
+    @Test
+    void planRejectsMultipleStatements() {
+        SqlShapeCache.Capture capture = capture(SQL, List.of("w", "n"), null);
+        capture.statements = 2;
+
+        assertThat(SqlShapeCache.plan(capture, List.of("w", "n"), List.of()).cacheable()).isFalse();
+    }
+
+    @Test
+    void planKeepsFilterParametersAfterDeclaredValues() {
+        SqlShapeCache.Entry entry = SqlShapeCache.plan(
+                capture(TENANT_SQL, List.of(1, "tenant-a"), null),
+                List.of(1),
+                List.of("tenant-a")
+        );
+
+        assertThat(entry.cacheable()).isTrue();
+        assertThat(entry.filterValues()).containsExactly("tenant-a");
+        assertThat(entry.bind(List.of(2))).containsExactly(2, "tenant-a");
+    }
+
+    @Test
+    void cachedShapeIsReplayedPerTenant() {
+        SqlShapeCache cache = new SqlShapeCache(16);
+        List<List<Object>> replayed = new ArrayList<>();
+
+        // 两个租户第一次查询都走 Jimmer，各自捕获租户过滤器追加的参数
+        assertThat(cache.query(key("tenant-a"), List.of(1), () -> jimmer(1, "tenant-a"), unexpected()))
+                .containsExactly("tenant-a");
+        assertThat(cache.query(key("tenant-b"), List.of(1), () -> jimmer(1, "tenant-b"), unexpected()))
+                .containsExactly("tenant-b");
+
+        // 命中时各自回放自己的租户参数，不会串到另一个租户
+        SqlShapeCache.CachedQuery<String> replay = (entry, values) -> {
+            assertThat(entry.sql()).isEqualTo(TENANT_SQL);
+            replayed.add(values);
+            return List.of();
+        };
+        cache.query(key("tenant-a"), List.of(2), SqlShapeCacheTest::notCalled, replay);
+        cache.query(key("tenant-b"), List.of(3), SqlShapeCacheTest::notCalled, replay);
+
+        assertThat(replayed).containsExactly(List.of(2, "tenant-a"), List.of(3, "tenant-b"));
+        assertThat(cache.stats().shapes()).isEqualTo(2);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    void missingTenantAndAdminDoNotShareShape() {
+        SqlShapeCache.CacheKey noTenant = key("");
+        SqlShapeCache.CacheKey admin = new SqlShapeCache.CacheKey(
+                BY_STORE,
+                new SqlShapeCache.FilterKey(true, new TreeMap<>())
+        );
+
+        assertThat(noTenant).isNotEqualTo(admin);
+        assertThat(admin).isNotEqualTo(new SqlShapeCache.CacheKey(BY_STORE, SqlShapeCache.FilterKey.NONE));
+    }
+
+    private static SqlShapeCache.CacheKey key(String tenant) {
+        return new SqlShapeCache.CacheKey(
+                BY_STORE,
+                new SqlShapeCache.FilterKey(true, new TreeMap<>(Map.of("tenant", tenant)))
+        );
+    }
+
+    // 模拟 Jimmer 执行：ShapeCaptureExecutor 捕获带租户条件的 SQL，结果标记所属租户
+    private static List<String> jimmer(int storeId, String tenant) {
+        SqlShapeCache.capture(TENANT_SQL, List.of(storeId, tenant), null);
+        return List.of(tenant);
+    }
+
+    private static <E> SqlShapeCache.CachedQuery<E> unexpected() {
+        return (entry, values) -> {
+            throw new AssertionError("The shape has not been cached yet");
+        };
+    }
+
+    private static List<String> notCalled() {
+        throw new AssertionError("The cached shape should be replayed");
+    }
+
+    private static SqlShapeCache.Capture capture(String sql, List<Object> variables, List<Integer> positions) {
+        SqlShapeCache.Capture capture = new SqlShapeCache.Capture();
+        capture.statements = 1;
+        capture.sql = sql;
+        capture.variables = variables;
+        capture.variablePositions = positions;
+        return capture;
+    }
+}
@@ -0,0 +1,65 @@
+package org.lionhead.advancestarter.tenant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantFilterTest {
+
+    private final BookTenantFilter bookTenantFilter = new BookTenantFilter();
+
+    @Test
+    void tenantHasOwnCachePartition() {
+        assertThat(TenantContext.call("tenant-a", bookTenantFilter::getParameters))
+                .containsExactlyEntriesOf(Map.of("tenant", "tenant-a"));
+    }
+
+    @Test
+    void missingTenantDoesNotShareAdminPartition() {
+        assertThat(bookTenantFilter.getParameters()).containsExactlyEntriesOf(Map.of("tenant", ""));
+        assertThat(TenantContext.call(TenantContext.ADMIN, bookTenantFilter::getParameters)).isEmpty();
+    }
+
+    @Test
+    void webRequestUsesTenantHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(TenantWebFilter.HEADER, "tenant-a");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<String> seen = new ArrayList<>();
+
+        new TenantWebFilter().doFilter(request, response, (req, res) -> seen.add(TenantContext.get()));
+
+        assertThat(seen).containsExactly("tenant-a");
+        assertThat(TenantContext.get()).isNull();
+    }
+
+    @Test
+    void webRequestWithoutTenantIsNotAdmin() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<Boolean> admin = new ArrayList<>();
+
+        new TenantWebFilter().doFilter(request, response, (req, res) -> admin.add(TenantContext.isAdmin()));
+
+        assertThat(admin).containsExactly(false);
+    }
+
+    @Test
+    void webRequestCannotClaimAdmin() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(TenantWebFilter.HEADER, TenantContext.ADMIN);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<String> seen = new ArrayList<>();
+
+        new TenantWebFilter().doFilter(request, response, (req, res) -> seen.add(TenantContext.get()));
+
+        assertThat(seen).isEmpty();
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+}
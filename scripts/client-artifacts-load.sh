@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# 对比 /ts.zip、/openapi.yaml 每次由 Jimmer 生成（before）与进程内缓存 + 预压缩（after）时的请求延迟
+# after-304 模拟前端 CI 带 If-None-Match 重新验证
+# 结果写入 jmh/build/results/load/client-before.json、client-after.json、client-after-304.json
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+CONCURRENCY=${CONCURRENCY:-50}
+DURATION=${DURATION:-30}
+PATHS=${PATHS:-/ts.zip,/openapi.yaml}
+ACCEPT_ENCODING="Accept-Encoding: gzip, deflate, br"
+
+gradle -q :part3-advance-starter:bootJar
+JAR=$(ls part3-advance-starter/build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)
+
+start_app() {
+  local label=$1
+  local enabled=$2
+  java -jar "$JAR" --spring.profiles.active=dev --server.port="$PORT" \
+    --lionhead.client-artifacts.enabled="$enabled" > "build/client-$label.log" 2>&1 &
+  APP_PID=$!
+  trap "kill $APP_PID 2>/dev/null || true" EXIT
+  for _ in $(seq 1 60); do
+    if curl -sf "http://localhost:$PORT/openapi.yaml" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+}
+
+stop_app() {
+  kill "$APP_PID"
+  wait "$APP_PID" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_load() {
+  local label=$1
+  local paths=$2
+  local headers=$3
+  gradle -q :jmh:loadScenario \
+    -Pload.label="$label" \
+    -Pload.baseUrl="http://localhost:$PORT" \
+    -Pload.concurrency="$CONCURRENCY" \
+    -Pload.duration="$DURATION" \
+    -Pload.paths="$paths" \
+    -Pload.headers="$headers"
+}
+
+mkdir -p build
+
+start_app before false
+run_load client-before "$PATHS" "$ACCEPT_ENCODING"
+stop_app
+
+start_app after true
+run_load client-after "$PATHS" "$ACCEPT_ENCODING"
+ETAG=$(curl -s -o /dev/null -D - -H "$ACCEPT_ENCODING" "http://localhost:$PORT/openapi.yaml" \
+  | tr -d '\r' | awk -F': ' 'tolower($1) == "etag" { print $2 }')
+run_load client-after-304 /openapi.yaml "$ACCEPT_ENCODING;If-None-Match: $ETAG"
+stop_app
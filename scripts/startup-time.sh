@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# 对比 part3-advance-starter 在同步校验（Jimmer 启动时校验）和后台校验两种模式下的启动耗时
+# 每种模式启动 RUNS 次，输出 StartupTimeReporter 打印的耗时
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+RUNS=${RUNS:-3}
+
+gradle -q :part3-advance-starter:bootJar
+JAR=$(ls part3-advance-starter/build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)
+
+run_mode() {
+  local label=$1
+  shift
+  for i in $(seq 1 "$RUNS"); do
+    local log="build/startup-$label-$i.log"
+    java -jar "$JAR" --spring.profiles.active=dev --server.port="$PORT" "$@" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    for _ in $(seq 1 120); do
+      if grep -q "Startup time:" "$log"; then
+        break
+      fi
+      sleep 0.5
+    done
+    echo "$label #$i: $(grep -o 'Startup time: [0-9]* ms' "$log" || echo 'not started')"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+  done
+}
+
+mkdir -p build
+run_mode blocking --jimmer.database-validation-mode=ERROR --lionhead.schema-validation.mode=OFF
+run_mode background --jimmer.database-validation-mode=NONE --lionhead.schema-validation.mode=BACKGROUND
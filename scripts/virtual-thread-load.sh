@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# 依次以平台线程模式和虚拟线程模式启动 part3-advance-starter，对同一组接口跑相同的压测场景
+# platform 与 virtual 使用相同的连接池大小（POOL_SIZE），只比较线程模型；
+# virtual-large-pool 再单独调大连接池（LARGE_POOL_SIZE），看虚拟线程下连接池成为瓶颈后的收益
+# 结果写入 jmh/build/results/load/platform.json、virtual.json 和 virtual-large-pool.json
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+CONCURRENCY=${CONCURRENCY:-400}
+DURATION=${DURATION:-30}
+POOL_SIZE=${POOL_SIZE:-10}
+LARGE_POOL_SIZE=${LARGE_POOL_SIZE:-64}
+
+gradle -q :part3-advance-starter:bootJar
+JAR=$(ls part3-advance-starter/build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)
+
+run_mode() {
+  local label=$1
+  local profiles=$2
+  local pool_size=$3
+  java -jar "$JAR" --spring.profiles.active="$profiles" --server.port="$PORT" \
+    --spring.datasource.hikari.maximum-pool-size="$pool_size" \
+    --spring.datasource.hikari.minimum-idle="$pool_size" \
+    --spring.datasource.hikari.connection-timeout=5000 > "build/$label.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+  for _ in $(seq 1 60); do
+    if curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+  gradle -q :jmh:loadScenario \
+    -Pload.label="$label" \
+    -Pload.baseUrl="http://localhost:$PORT" \
+    -Pload.concurrency="$CONCURRENCY" \
+    -Pload.duration="$DURATION"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+mkdir -p build
+run_mode platform dev "$POOL_SIZE"
+run_mode virtual dev,virtual "$POOL_SIZE"
+run_mode virtual-large-pool dev,virtual "$LARGE_POOL_SIZE"